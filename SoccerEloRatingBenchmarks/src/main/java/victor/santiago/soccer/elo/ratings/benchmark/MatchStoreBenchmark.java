@@ -0,0 +1,125 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import victor.santiago.soccer.elo.ratings.controller.EloCalculator;
+import victor.santiago.soccer.elo.ratings.helper.EloHelper;
+import victor.santiago.soccer.elo.ratings.helper.MatchStore;
+import victor.santiago.soccer.elo.ratings.helper.RatingEngine;
+import victor.santiago.soccer.elo.ratings.model.League;
+
+/**
+ * Calculates the ratings of a history of leagues from a JSON file and from a match store.
+ *
+ * @author Victor Santiago
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MatchStoreBenchmark {
+
+    private static final Gson GSON = new GsonBuilder()
+            .create();
+
+    @Param({"10", "100"})
+    private int seasons;
+
+    private Path json;
+    private Path store;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        ArrayList<League> leagues = SyntheticLeagues.getLeagues(seasons, 20, 42);
+
+        json = Files.createTempFile("leagues", ".json");
+        Files.write(json, GSON.toJson(leagues).getBytes(StandardCharsets.UTF_8));
+
+        store = Files.createTempFile("matches", ".store");
+        EloCalculator calculator = getCalculator();
+        leagues.forEach(calculator::addLeague);
+        calculator.saveMatchStoreFile(store.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(json);
+        Files.deleteIfExists(store);
+    }
+
+    private static EloCalculator getCalculator() {
+        return EloCalculator.builder()
+                .leagues(new ArrayList<League>())
+                .eHelper(new EloHelper())
+                .build();
+    }
+
+    @Benchmark
+    public EloCalculator calculateRatingsFromJsonFile() throws IOException {
+        EloCalculator calculator = getCalculator();
+        calculator.addLeaguesFromJsonFile(json.toString());
+        calculator.calculateRatings();
+        return calculator;
+    }
+
+    @Benchmark
+    public EloCalculator calculateRatingsFromMatchStoreFile() throws IOException {
+        EloCalculator calculator = getCalculator();
+        calculator.calculateRatingsFromMatchStoreFile(store.toString());
+        return calculator;
+    }
+
+    @Benchmark
+    public RatingEngine replayMatchStore() throws IOException {
+        RatingEngine engine = new RatingEngine();
+        engine.replay(MatchStore.open(store.toString()));
+        return engine;
+    }
+}
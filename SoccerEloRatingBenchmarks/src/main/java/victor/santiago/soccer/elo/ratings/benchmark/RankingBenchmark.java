@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import victor.santiago.soccer.elo.ratings.model.Ranking;
+
+/**
+ * Time to rank the final table of a season, fully or only the top and bottom 4 
+ * (the default zones of the statistics). Used to choose when {@link Ranking} 
+ * selects instead of sorting. copyOnly is the cost of copying a table, 
+ * which the other two include.
+ *
+ * @author Victor Santiago
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RankingBenchmark {
+
+    private static final int TABLES = 1024;
+    private static final int ZONE_SIZE = 4;
+
+    @Param({"16", "20", "24", "38"})
+    private int teams;
+
+    private long[][] tables;
+    private long[] keys;
+    private int next;
+
+    @Setup
+    public void generateTables() {
+        Random random = new Random(42);
+        tables = new long[TABLES][teams];
+
+        for (long[] table : tables) {
+            for (int id = 0; id < teams; id++) {
+                int wins = random.nextInt(2 * teams);
+                int ties = random.nextInt(teams);
+                table[id] = Ranking.getKey(3 * wins + ties, wins, random.nextInt(81) - 40, id);
+            }
+        }
+
+        keys = new long[teams];
+    }
+
+    @Benchmark
+    public long[] copyOnly() {
+        System.arraycopy(nextTable(), 0, keys, 0, teams);
+        return keys;
+    }
+
+    @Benchmark
+    public long[] rankAll() {
+        System.arraycopy(nextTable(), 0, keys, 0, teams);
+        Ranking.rank(keys, teams, teams, 0);
+        return keys;
+    }
+
+    @Benchmark
+    public long[] rankZones() {
+        System.arraycopy(nextTable(), 0, keys, 0, teams);
+        Ranking.rank(keys, teams, ZONE_SIZE, ZONE_SIZE);
+        return keys;
+    }
+
+    private long[] nextTable() {
+        next = (next + 1) & (TABLES - 1);
+        return tables[next];
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import victor.santiago.soccer.elo.ratings.helper.EloHelper;
+import victor.santiago.soccer.elo.ratings.helper.PredictionMetrics;
+import victor.santiago.soccer.elo.ratings.model.Match;
+
+/**
+ * Replays a whole history of matches from scratch, 
+ * of one competition or of several with no teams in common.
+ *
+ * @author Victor Santiago
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RatingReplayBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int matches;
+
+    @Param({"200"})
+    private int teams;
+
+    @Param({"1", "8"})
+    private int competitions;
+
+    @Param({"false", "true"})
+    private boolean scorePredictions;
+
+    private ArrayList<Match> history;
+    private EloHelper helper;
+
+    @Setup(Level.Trial)
+    public void generateHistory() {
+        history = competitions == 1 ? SyntheticLeagues.getMatches(matches, teams, 42)
+                : SyntheticLeagues.getMatches(matches, teams, competitions, 42);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetRatings() {
+        helper = new EloHelper();
+
+        if (scorePredictions) {
+            helper.setMetrics(new PredictionMetrics());
+        }
+    }
+
+    @Benchmark
+    public EloHelper updateRatingsWithMatches() {
+        helper.updateRatingsWithMatches(history);
+        return helper;
+    }
+
+    @Benchmark
+    public EloHelper updateRatingsWithMatchesInParallel() {
+        helper.updateRatingsWithMatches(history, ForkJoinPool.commonPool().getParallelism());
+        return helper;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import victor.santiago.soccer.elo.ratings.helper.SplitMix64Random;
+import victor.santiago.soccer.elo.ratings.model.PoissonModel;
+import victor.santiago.soccer.elo.ratings.model.SimulatedLeague;
+import victor.santiago.soccer.elo.ratings.model.SimulationKernel;
+import victor.santiago.soccer.elo.ratings.model.TeamPerformance;
+import victor.santiago.soccer.elo.ratings.model.TieMarginModel;
+
+/**
+ * Time to simulate a single season of a league, through the league (which builds 
+ * the final table as a map) and through its compiled kernel.
+ *
+ * @author Victor Santiago
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({"20"})
+    private int teams;
+
+    @Param({"TIE_MARGIN", "POISSON"})
+    private String model;
+
+    @Param({"false", "true"})
+    private boolean updateRatings;
+
+    private SimulatedLeague league;
+    private SimulationKernel kernel;
+    private SimulationKernel.Season season;
+    private SplitMix64Random random;
+
+    @Setup
+    public void createLeague() {
+        league = SyntheticLeagues.getSimulatedLeague(teams, 42);
+        league.setOutcomeModel("POISSON".equals(model) ? new PoissonModel() : TieMarginModel.INSTANCE);
+        kernel = league.getKernel(false);
+        season = kernel.newSeason();
+        random = new SplitMix64Random(42);
+    }
+
+    @Benchmark
+    public Map<String, TeamPerformance> simulate() {
+        return league.simulate(updateRatings, false);
+    }
+
+    @Benchmark
+    public int[] simulateCompiled() {
+        kernel.simulate(random, season, updateRatings);
+        return season.rank();
+    }
+}
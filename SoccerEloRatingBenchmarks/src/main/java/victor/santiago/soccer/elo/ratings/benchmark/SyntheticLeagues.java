@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.benchmark;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import victor.santiago.soccer.elo.ratings.model.EloRating;
+import victor.santiago.soccer.elo.ratings.model.League;
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.SimulatedLeague;
+import victor.santiago.soccer.elo.ratings.model.Team;
+import victor.santiago.soccer.elo.ratings.model.TeamPerformance;
+
+/**
+ * Generates fake leagues for the benchmarks. Everything is derived from the seed,
+ * so the same arguments always give the same data and results can be compared between runs.
+ *
+ * @author Victor Santiago
+ */
+public final class SyntheticLeagues {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long FIRST_DAY = 0;
+
+    private SyntheticLeagues() { }
+
+    public static String getTeamName(int team) {
+        return "Team " + team;
+    }
+
+    /**
+     * Generates a chronological history of matches between random pairs of teams.
+     * Stronger teams (lower numbers) score a bit more often.
+     *
+     * @param matches Number of matches.
+     * @param teams Number of teams.
+     * @param seed Seed of the generator.
+     * @return The matches, sorted by date.
+     */
+    public static ArrayList<Match> getMatches(int matches, int teams, long seed) {
+        Random random = new Random(seed);
+        double[] strength = getStrengths(teams, random);
+        ArrayList<Match> result = new ArrayList<>(matches);
+
+        for (int i = 0; i < matches; i++) {
+            int home = random.nextInt(teams);
+            int away = random.nextInt(teams - 1);
+            if (away >= home) {
+                away++;
+            }
+
+            result.add(getMatch(home, away, new Date(FIRST_DAY + i * DAY), strength, random));
+        }
+
+        return result;
+    }
+
+    /**
+     * Generates a chronological history of matches of competitions with no teams in common,
+     * played on alternate days. Team t plays in competition t % competitions.
+     *
+     * @param matches Number of matches.
+     * @param teams Number of teams, of all the competitions.
+     * @param competitions Number of competitions, each with at least two teams.
+     * @param seed Seed of the generator.
+     * @return The matches, sorted by date.
+     */
+    public static ArrayList<Match> getMatches(int matches, int teams, int competitions, long seed) {
+        Random random = new Random(seed);
+        double[] strength = getStrengths(teams, random);
+        ArrayList<Match> result = new ArrayList<>(matches);
+
+        for (int i = 0; i < matches; i++) {
+            int competition = i % competitions;
+            int size = (teams - competition + competitions - 1) / competitions;
+
+            int home = random.nextInt(size);
+            int away = random.nextInt(size - 1);
+            if (away >= home) {
+                away++;
+            }
+
+            result.add(getMatch(home * competitions + competition, away * competitions + competition, 
+                    new Date(FIRST_DAY + i * DAY), strength, random));
+        }
+
+        return result;
+    }
+
+    /**
+     * Generates seasons of a double round-robin league.
+     *
+     * @param seasons Number of seasons.
+     * @param teams Number of teams in the league.
+     * @param seed Seed of the generator.
+     * @return One league per season.
+     */
+    public static ArrayList<League> getLeagues(int seasons, int teams, long seed) {
+        Random random = new Random(seed);
+        double[] strength = getStrengths(teams, random);
+        ArrayList<League> leagues = new ArrayList<>();
+
+        long day = FIRST_DAY;
+        for (int season = 0; season < seasons; season++) {
+            List<Match> matches = new ArrayList<>();
+
+            for (int home = 0; home < teams; home++) {
+                for (int away = 0; away < teams; away++) {
+                    if (home != away) {
+                        matches.add(getMatch(home, away, new Date(day), strength, random));
+                        day += DAY;
+                    }
+                }
+            }
+
+            leagues.add(League.builder()
+                    .name("Synthetic League " + season)
+                    .champion(getTeamName(0))
+                    .year(2000 + season)
+                    .matches(matches)
+                    .build());
+        }
+
+        return leagues;
+    }
+
+    /**
+     * Generates a league that hasn't started yet, with all the teams already rated.
+     *
+     * @param teams Number of teams in the league.
+     * @param seed Seed of the generator.
+     * @return A league where every match is still to be simulated.
+     */
+    public static SimulatedLeague getSimulatedLeague(int teams, long seed) {
+        Random random = new Random(seed);
+        Map<String, Team> ratings = new HashMap<>();
+
+        for (int i = 0; i < teams; i++) {
+            Team t = new Team(getTeamName(i));
+            t.addRating(new EloRating(new Date(FIRST_DAY), 1300 + random.nextInt(400)));
+            ratings.put(t.getName(), t);
+        }
+
+        SimulatedLeague league = new SimulatedLeague(ratings);
+        long day = FIRST_DAY;
+        for (int home = 0; home < teams; home++) {
+            for (int away = 0; away < teams; away++) {
+                if (home != away) {
+                    league.addMatch(Match.builder()
+                            .home(getTeamName(home))
+                            .away(getTeamName(away))
+                            .homeGoals(-1)
+                            .awayGoals(-1)
+                            .date(new Date(day += DAY))
+                            .build());
+                }
+            }
+        }
+
+        return league;
+    }
+
+    /**
+     * Generates final tables of simulated leagues, as returned by a Simulator.
+     *
+     * @param simulations Number of simulated leagues.
+     * @param teams Number of teams in the league.
+     * @param seed Seed of the generator.
+     * @return The performances of every team in each simulation.
+     */
+    public static List<Map<String, TeamPerformance>> getPerformances(int simulations, int teams,
+            long seed) {
+        Random random = new Random(seed);
+        int games = 2 * (teams - 1);
+        List<Map<String, TeamPerformance>> result = new ArrayList<>(simulations);
+
+        for (int i = 0; i < simulations; i++) {
+            Map<String, TeamPerformance> league = new HashMap<>();
+
+            for (int t = 0; t < teams; t++) {
+                int wins = random.nextInt(games + 1);
+                int ties = random.nextInt(games - wins + 1);
+                int losses = games - wins - ties;
+                int goals = wins - losses + random.nextInt(11) - 5;
+
+                String name = getTeamName(t);
+                league.put(name, new TeamPerformance(name, wins, losses, ties, 3 * wins + ties, goals));
+            }
+
+            result.add(league);
+        }
+
+        return result;
+    }
+
+    private static double[] getStrengths(int teams, Random random) {
+        double[] strength = new double[teams];
+
+        for (int i = 0; i < teams; i++) {
+            strength[i] = 0.8 + random.nextDouble() * (teams - i) / teams;
+        }
+
+        return strength;
+    }
+
+    private static Match getMatch(int home, int away, Date date, double[] strength, Random random) {
+        return Match.builder()
+                .home(getTeamName(home))
+                .away(getTeamName(away))
+                .homeGoals(getGoals(strength[home] * 1.2, random))
+                .awayGoals(getGoals(strength[away], random))
+                .date(date)
+                .build();
+    }
+
+    private static int getGoals(double mean, Random random) {
+        //Knuth's Poisson sampling
+        double limit = Math.exp(-mean);
+        double p = random.nextDouble();
+        int goals = 0;
+
+        while (p > limit) {
+            p *= random.nextDouble();
+            goals++;
+        }
+
+        return goals;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import victor.santiago.soccer.elo.ratings.helper.EloHelper;
+import victor.santiago.soccer.elo.ratings.helper.RatingEngine;
+import victor.santiago.soccer.elo.ratings.helper.WinningExpectancy;
+import victor.santiago.soccer.elo.ratings.model.Match;
+
+/**
+ * Throughput of the winning probability, one match at a time and in batches.
+ *
+ * @author Victor Santiago
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WinningProbabilityBenchmark {
+
+    private static final int FIXTURES = 1024;
+
+    @Param({"EXACT", "EXP", "TABLE"})
+    private WinningExpectancy expectancy;
+
+    private EloHelper helper;
+    private ArrayList<Match> fixtures;
+    private int next;
+
+    private RatingEngine engine;
+    private int[] home;
+    private int[] away;
+    private double[] probabilities;
+
+    @Setup
+    public void rateTeams() {
+        helper = new EloHelper();
+        helper.updateRatingsWithMatches(SyntheticLeagues.getMatches(100000, 200, 42));
+        fixtures = SyntheticLeagues.getMatches(FIXTURES, 200, 7);
+
+        engine = new RatingEngine(helper);
+        home = new int[FIXTURES];
+        away = new int[FIXTURES];
+        probabilities = new double[FIXTURES];
+        for (int i = 0; i < FIXTURES; i++) {
+            home[i] = engine.intern(fixtures.get(i).getHome());
+            away[i] = engine.intern(fixtures.get(i).getAway());
+        }
+    }
+
+    @Benchmark
+    public double getWinningProbability() {
+        next = (next + 1) & (FIXTURES - 1);
+        return helper.getWinningProbability(fixtures.get(next));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIXTURES)
+    public double[] getWinningProbabilities() {
+        engine.getWinningProbabilities(home, away, probabilities, expectancy);
+        return probabilities;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import victor.santiago.soccer.elo.ratings.model.SimulationKernel;
+
+/**
+ * Simulates many leagues at once, e.g. all the leagues of a matchday.
+ *
+ * The runs of every league are split in chunks, which are handed to the pool in turns 
+ * (a chunk of each league, then the next chunk of each league and so on), so all cores 
+ * are busy until the end no matter how different the leagues are, and small leagues 
+ * don't wait for the big ones. The statistics of a league are completed as soon as 
+ * its last chunk finishes.
+ *
+ * Runs are numbered as in {@link Simulator#simulate(int, int, long, java.util.concurrent.ForkJoinPool)},
+ * so a league gets the same statistics as simulating it alone with the same seed. 
+ * They start after the simulations the statistics already have, so adding more runs 
+ * later never repeats a season.
+ *
+ * @author Victor Santiago
+ */
+public class BatchSimulator {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public BatchSimulator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param pool Pool running the chunks
+     * @param chunkSize Number of runs of a chunk
+     */
+    public BatchSimulator(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("A chunk must have at least one run.");
+        }
+
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Simulates a single league.
+     *
+     * @see #simulate(List, List, long)
+     */
+    public CompletableFuture<Statistics> simulate(Simulator simulator, int runs, long seed) {
+        List<Simulator> simulators = new ArrayList<>();
+        simulators.add(simulator);
+
+        List<Integer> allRuns = new ArrayList<>();
+        allRuns.add(runs);
+
+        return simulate(simulators, allRuns, seed).get(0);
+    }
+
+    /**
+     * Simulates a number of leagues, each one a given number of times.
+     *
+     * @param simulators The simulator of each league
+     * @param runs Number of times to simulate each league
+     * @param seed Seed of the random streams
+     * @return The statistics of each league, in the same order, completed as each league finishes
+     */
+    public List<CompletableFuture<Statistics>> simulate(List<Simulator> simulators, List<Integer> runs,
+            long seed) {
+        List<Statistics> statistics = new ArrayList<>();
+        for (int i = 0; i < simulators.size(); i++) {
+            statistics.add(new Statistics());
+        }
+
+        return simulate(simulators, runs, seed, statistics);
+    }
+
+    /**
+     * Same as {@link #simulate(List, List, long)}, counting the simulations of each league
+     * into the given statistics, with their zones and settings.
+     *
+     * @param simulators The simulator of each league
+     * @param runs Number of times to simulate each league
+     * @param seed Seed of the random streams
+     * @param statistics Where the simulations of each league are counted
+     * @return The statistics of each league, in the same order, completed as each league finishes
+     */
+    public List<CompletableFuture<Statistics>> simulate(List<Simulator> simulators, List<Integer> runs,
+            long seed, List<Statistics> statistics) {
+        if (simulators.size() != runs.size() || simulators.size() != statistics.size()) {
+            throw new IllegalArgumentException("There must be a number of runs and statistics for each league.");
+        }
+
+        List<LeagueRuns> leagues = new ArrayList<>();
+        List<CompletableFuture<Statistics>> results = new ArrayList<>();
+        for (int i = 0; i < simulators.size(); i++) {
+            LeagueRuns league = new LeagueRuns(simulators.get(i), runs.get(i), seed, statistics.get(i));
+            leagues.add(league);
+            results.add(league.result);
+
+            if (league.chunks == 0) {
+                league.result.complete(league.statistics);
+            }
+        }
+
+        boolean submitted = true;
+        for (int chunk = 0; submitted; chunk++) {
+            submitted = false;
+
+            for (LeagueRuns league : leagues) {
+                if (chunk < league.chunks) {
+                    final int start = chunk * chunkSize;
+                    pool.execute(() -> league.simulate(start));
+                    submitted = true;
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * The runs of a league, collecting the statistics of its chunks.
+     */
+    private final class LeagueRuns {
+
+        private final Simulator simulator;
+        private final SimulationKernel kernel;
+        private final int first;
+        private final int runs;
+        private final long seed;
+        private final int chunks;
+        private final Statistics statistics;
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Statistics> result;
+
+        private LeagueRuns(Simulator simulator, int runs, long seed, Statistics statistics) {
+            this.simulator = simulator;
+            this.kernel = simulator.getKernel();
+            this.first = statistics.getSimulations();
+            this.runs = runs;
+            this.seed = seed;
+            this.chunks = (runs + chunkSize - 1) / chunkSize;
+            this.statistics = statistics;
+            this.remaining = new AtomicInteger(chunks);
+            this.result = new CompletableFuture<>();
+
+            //So the teams are always in the same order, whatever chunk finishes first
+            statistics.getTeamIndexes(kernel.getIndex().getNames());
+        }
+
+        //Simulates the chunk starting at the given run of this batch
+        private void simulate(int start) {
+            if (result.isDone()) {
+                return;
+            }
+
+            try {
+                Statistics chunk = simulator.simulate(first + start, Math.min(chunkSize, runs - start), 
+                        seed, statistics.emptyCopy(), kernel);
+
+                synchronized (this) {
+                    statistics.merge(chunk);
+                }
+
+                if (remaining.decrementAndGet() == 0) {
+                    result.complete(statistics);
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -30,16 +30,31 @@ import com.google.gson.reflect.TypeToken;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import lombok.Builder;
 import lombok.Data;
 
+import victor.santiago.soccer.elo.ratings.helper.Calibrator;
 import victor.santiago.soccer.elo.ratings.helper.EloHelper;
+import victor.santiago.soccer.elo.ratings.helper.IncrementalRatings;
+import victor.santiago.soccer.elo.ratings.helper.LeagueJsonReader;
+import victor.santiago.soccer.elo.ratings.helper.MatchStore;
+import victor.santiago.soccer.elo.ratings.helper.PredictionMetrics;
+import victor.santiago.soccer.elo.ratings.helper.RatingEngine;
+import victor.santiago.soccer.elo.ratings.helper.TeamSnapshot;
 import victor.santiago.soccer.elo.ratings.helper.Util;
+import victor.santiago.soccer.elo.ratings.model.EloRating;
 import victor.santiago.soccer.elo.ratings.model.League;
 import victor.santiago.soccer.elo.ratings.model.Match;
 import victor.santiago.soccer.elo.ratings.model.SimulatedLeague;
@@ -55,11 +70,11 @@ public class EloCalculator {
 
     private static final Gson GSON = new GsonBuilder()
             .setPrettyPrinting()
-            .setDateFormat("MMM dd, yyyy HH:mm:ss aa")
             .create();
 
     private ArrayList<League> leagues;
     private EloHelper eHelper;
+    private IncrementalRatings incrementalRatings;
 
     public double getK() {
         return eHelper.getK();
@@ -67,28 +82,141 @@ public class EloCalculator {
 
     public void setK(double k) {
         eHelper.setK(k);
+        resetIncrementalRatings();
     }
 
     public boolean willRegressTowardMean() {
         return eHelper.isRegressTowardMean();
     }
 
+    /**
+     * @param regressTowardMean True to regress the teams of each league towards the mean 
+     *                          after its last match when calculating the ratings.
+     */
     public void setRegressTowardMean(boolean regressTowardMean) {
         eHelper.setRegressTowardMean(regressTowardMean);
     }
 
+    public double getRegressionMean() {
+        return eHelper.getRegressionMean();
+    }
+
+    public void setRegressionMean(double regressionMean) {
+        eHelper.setRegressionMean(regressionMean);
+        resetIncrementalRatings();
+    }
+
+    public double getRegressionDivisor() {
+        return eHelper.getRegressionDivisor();
+    }
+
+    /**
+     * @param regressionDivisor What the distance to the mean is divided by when regressing, 
+     *                          3 removes a third of it.
+     */
+    public void setRegressionDivisor(double regressionDivisor) {
+        eHelper.setRegressionDivisor(regressionDivisor);
+        resetIncrementalRatings();
+    }
+
+    public double getHomeAdvantage() {
+        return eHelper.getHomeAdvantage();
+    }
+
+    /**
+     * @param homeAdvantage Rating points added to the home team for the expected results.
+     */
+    public void setHomeAdvantage(double homeAdvantage) {
+        eHelper.setHomeAdvantage(homeAdvantage);
+        resetIncrementalRatings();
+    }
+
+    public double getGoalDifferenceWeight() {
+        return eHelper.getGoalDifferenceWeight();
+    }
+
+    /**
+     * @param goalDifferenceWeight 1 uses the goal difference index as is, 0 ignores it.
+     */
+    public void setGoalDifferenceWeight(double goalDifferenceWeight) {
+        eHelper.setGoalDifferenceWeight(goalDifferenceWeight);
+        resetIncrementalRatings();
+    }
+
+    /**
+     * @return The current settings, e.g. to compare them with the ones of a calibration.
+     */
+    public Calibrator.Parameters getParameters() {
+        return new Calibrator.Parameters(getK(), getRegressionDivisor(), getHomeAdvantage(), 
+                getGoalDifferenceWeight());
+    }
+
+    /**
+     * Uses the settings found by a {@link Calibrator}, e.g. the best ones of 
+     * {@link Calibrator#calibrate(List, Calibrator.Score)}.
+     * 
+     * @param parameters The settings.
+     */
+    public void setParameters(Calibrator.Parameters parameters) {
+        setK(parameters.getK());
+        setRegressionDivisor(parameters.getRegressionDivisor());
+        setHomeAdvantage(parameters.getHomeAdvantage());
+        setGoalDifferenceWeight(parameters.getGoalDifferenceWeight());
+    }
+
+    public PredictionMetrics getPredictionMetrics() {
+        return eHelper.getMetrics();
+    }
+
+    /**
+     * Scores the expected result of every match replayed from now on, 
+     * per competition and season.
+     * 
+     * @param metrics Where the predictions are added, null to stop scoring them.
+     */
+    public void setPredictionMetrics(PredictionMetrics metrics) {
+        eHelper.setMetrics(metrics);
+    }
+
+    public int getHistoryLimit() {
+        return eHelper.getHistoryLimit();
+    }
+
+    /**
+     * Limits how many ratings each team keeps, e.g. 1 to keep only the current ratings.
+     * 
+     * @param historyLimit Maximum number of ratings kept per team, 0 to keep all of them.
+     */
+    public void setHistoryLimit(int historyLimit) {
+        eHelper.setHistoryLimit(historyLimit);
+        resetIncrementalRatings();
+    }
+
+    /**
+     * The helper may be changed straight through it, so the incremental ratings start over.
+     * 
+     * @return The helper with the teams and settings of the calculator.
+     */
+    public EloHelper getEHelper() {
+        resetIncrementalRatings();
+        return eHelper;
+    }
+
+    public void setEHelper(EloHelper eHelper) {
+        this.eHelper = eHelper;
+        resetIncrementalRatings();
+    }
+
     public void addLeaguesFromJson(String json) {
         this.leagues.addAll(GSON.fromJson(json, new TypeToken<ArrayList<League>>(){}.getType()));
     }
     
     public void addLeaguesFromJsonFile(String path) throws IOException {
-        addLeaguesFromJson(Util.readFile(path));
+        this.leagues.addAll(readLeaguesFromJsonFile(path));
     }
     
     public void addLeaguesFromJsonFile(String path, double k) throws IOException {        
-        String json = Util.readFile(path);
-        
-        ArrayList<League> newLeagues = GSON.fromJson(json, new TypeToken<ArrayList<League>>(){}.getType());
+        ArrayList<League> newLeagues = readLeaguesFromJsonFile(path);
 
         for (int i = 0; i < newLeagues.size(); i++) {
             for (int j = 0; j < newLeagues.get(i).getMatches().size(); j++) {
@@ -99,6 +227,101 @@ public class EloCalculator {
         this.leagues.addAll(newLeagues);
     }
     
+    private ArrayList<League> readLeaguesFromJsonFile(String path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, new TypeToken<ArrayList<League>>(){}.getType());
+        }
+    }
+
+    /**
+     * Reads the matches of a JSON file of leagues while it's being parsed, 
+     * without keeping the file or the leagues in memory.
+     * 
+     * @param path The JSON file, in the same format as {@link #addLeaguesFromJsonFile(String)}.
+     * @param bufferSize Maximum number of matches kept in memory at once.
+     * @param handler Receives the matches in batches of up to bufferSize, in file order.
+     *                The list is reused, so copy it if you need it after returning.
+     * @throws IOException If the file can't be read.
+     */
+    public void readMatchesFromJsonFile(String path, int bufferSize, 
+            Consumer<List<Match>> handler) throws IOException {
+        try (LeagueJsonReader reader = new LeagueJsonReader(path, GSON)) {
+            reader.readMatches(bufferSize, handler);
+        }
+    }
+
+    /**
+     * Calculates the ratings straight from a JSON file of leagues, 
+     * so files larger than the heap can be used.
+     * Matches are replayed in batches of bufferSize, each batch sorted by date, 
+     * which means the file must list the matches in chronological order 
+     * (except within the same batch). That way the ratings are the same as adding the file 
+     * with {@link #addLeaguesFromJsonFile(String)} and calling {@link #calculateRatings()} 
+     * with no regression toward the mean, which this doesn't do.
+     * 
+     * @param path The JSON file, in the same format as {@link #addLeaguesFromJsonFile(String)}.
+     * @param bufferSize Maximum number of matches kept in memory at once.
+     * @throws IOException If the file can't be read.
+     * @throws IllegalArgumentException If a batch has a match older than the ones already replayed.
+     *                                  The batches before it are kept.
+     */
+    public void calculateRatingsFromJsonFile(String path, int bufferSize) throws IOException {
+        calculateRatingsFromJsonFile(path, bufferSize, 0);
+    }
+
+    /**
+     * Same as {@link #calculateRatingsFromJsonFile(String, int)}, 
+     * but using a custom K for all the matches in the file.
+     */
+    public void calculateRatingsFromJsonFile(String path, int bufferSize, double k) 
+            throws IOException {
+        long[] lastDate = {Long.MIN_VALUE};
+
+        readMatchesFromJsonFile(path, bufferSize, matches -> {
+            Collections.sort(matches);
+
+            if (!matches.isEmpty() && matches.get(0).getDate() < lastDate[0]) {
+                throw new IllegalArgumentException("The matches of " + path + " aren't in chronological order, "
+                        + matches.get(0) + " is older than the matches already replayed.");
+            }
+
+            for (Match m : matches) {
+                if (k != 0) {
+                    m.setCustomK(k);
+                }
+
+                eHelper.updateRatings(m);
+                lastDate[0] = m.getDate();
+            }
+        });
+
+        resetIncrementalRatings();
+    }
+    
+    /**
+     * Saves the matches of all Leagues added, sorted by date, as a match store, 
+     * which can be replayed later without parsing the JSON again.
+     * 
+     * @param path The file.
+     * @throws IOException If the file can't be written.
+     */
+    public void saveMatchStoreFile(String path) throws IOException {
+        MatchStore.write(getMatches(true), path);
+    }
+
+    /**
+     * Calculates the ratings with the matches of a file written by 
+     * {@link #saveMatchStoreFile(String)}, read straight from the mapped file.
+     * The store doesn't keep the leagues, so the ratings aren't regressed towards the mean.
+     * 
+     * @param path The file.
+     * @throws IOException If the file can't be read or isn't a match store.
+     */
+    public void calculateRatingsFromMatchStoreFile(String path) throws IOException {
+        eHelper.updateRatings(MatchStore.open(path));
+        resetIncrementalRatings();
+    }
+    
     public void addLeague(League l) {
         this.leagues.add(l);
     }
@@ -125,10 +348,11 @@ public class EloCalculator {
 
     public void setTeams(Map<String, Team> teams) {
         eHelper.setTeams(teams);
+        resetIncrementalRatings();
     }
     
     public void setTeamsFromJson(String json) {
-        eHelper.setTeams(GSON.fromJson(json,
+        setTeams(GSON.fromJson(json,
                 new TypeToken<Map<String, Team>>(){}.getType()));
     }
     
@@ -136,14 +360,64 @@ public class EloCalculator {
         setTeamsFromJson(Util.readFile(path));
     }
     
+    /**
+     * Loads the teams from a binary snapshot, 
+     * which is much faster than JSON for large histories.
+     * 
+     * @param path The file written by {@link #saveTeamsSnapshotFile(String)}.
+     * @throws IOException If the file can't be read or isn't a snapshot.
+     */
+    public void setTeamsFromSnapshotFile(String path) throws IOException {
+        setTeams(TeamSnapshot.read(path));
+    }
+    
     public Team getTeam(String t) {
         return eHelper.getTeams().get(t);
     }
     
+    /**
+     * @param t The team name.
+     * @param date The date.
+     * @return The rating of the team at the end of that date, 
+     * or the initial rating if it hadn't played yet.
+     */
+    public double getRatingAt(String t, Date date) {
+        Team team = getTeam(t);
+        return team == null ? EloRating.INITIAL_RATING : team.getRatingAt(date);
+    }
+
+    /**
+     * Ratings of all teams at the end of a given date. 
+     * Each team only does a binary search on its history.
+     * 
+     * @param date The date.
+     * @return A map with team -> rating. Teams that hadn't played yet have the initial rating.
+     */
+    public Map<String, Double> getRatingsAt(Date date) {
+        long time = date.getTime();
+        Map<String, Double> ratings = new HashMap<>();
+
+        for (Team t : eHelper.getTeams().values()) {
+            ratings.put(t.getName(), t.getRatingAt(time));
+        }
+
+        return ratings;
+    }
+    
     public void saveTeamsJsonFile(String path) throws IOException {
         GSON.toJson(eHelper.getTeams(), new FileWriter(path));
     }
     
+    /**
+     * Saves the teams, with their whole rating history, in a compact binary format.
+     * 
+     * @param path Where to save the snapshot.
+     * @throws IOException If the file can't be written.
+     */
+    public void saveTeamsSnapshotFile(String path) throws IOException {
+        TeamSnapshot.write(eHelper.getTeams(), path);
+    }
+    
     public SimulatedLeague simulateLeague(League l) {
         return null;
     }
@@ -163,7 +437,23 @@ public class EloCalculator {
     }
     
     /**
-     * Calculates the ratings based on the games of all Leagues added.
+     * Compiles the Leagues added for a search of the best settings, without removing them.
+     * 
+     * @return A calibrator replaying the matches sorted by date, like {@link #calculateRatings()}, 
+     * regressing towards the same mean only if the calculator does.
+     */
+    public Calibrator getCalibrator() {
+        Calibrator calibrator = new Calibrator(leagues);
+        calibrator.setRegressTowardMean(willRegressTowardMean());
+        calibrator.setRegressionMean(getRegressionMean());
+
+        return calibrator;
+    }
+    
+    /**
+     * Calculates the ratings based on the games of all Leagues added, sorted by date.
+     * Unless told not to, the teams of each league are regressed towards the mean 
+     * after its last match.
      * After calculating, it will delete the league and matches used, 
      * so it doesn't repeat the same matches later on.
      * 
@@ -176,13 +466,100 @@ public class EloCalculator {
         }
 
         //eHelper.updateRatings(leagues);
-        eHelper.updateRatingsWithMatches(getMatches(true));
+        eHelper.updateRatingsInDateOrder(leagues);
+        resetIncrementalRatings();
 
         leagues.clear();
         
         return true;
     }
     
+    /**
+     * Calculates the ratings based on the games of all Leagues added, in incremental mode.
+     * The first call starts from the current ratings of the helper. After that, 
+     * the matches are kept (as compact columns) so new ones can be added later, even if 
+     * they are older than matches already calculated: only the matches after them are replayed.
+     * The teams of the calculator are kept up to date, with a new rating for each match. 
+     * When part of the history is replayed their history is rewritten from then on, 
+     * see {@link #getIncrementalRatings()}.
+     * 
+     * @return True if calculated, 
+     * false if there are no League/Matches left to calculate the ratings.
+     */
+    public boolean calculateRatingsIncrementally() {
+        if (!hasLeagues()) {
+            return false;
+        }
+
+        addMatches(getMatches(false));
+
+        leagues.clear();
+
+        return true;
+    }
+
+    /**
+     * Adds a new match to the incremental ratings, updating the teams of the calculator.
+     * 
+     * @param m The match.
+     * @return False if the match arrived out of order and part of the history was replayed.
+     */
+    public boolean addMatch(Match m) {
+        return getIncrementalRatings().addMatch(m);
+    }
+
+    /**
+     * Adds new matches to the incremental ratings, replaying the history at most once,
+     * and updates the teams of the calculator.
+     * 
+     * @param matches The matches, in any order.
+     * @return False if any of them arrived out of order.
+     */
+    public boolean addMatches(List<Match> matches) {
+        return getIncrementalRatings().addMatches(matches);
+    }
+
+    /**
+     * The incremental ratings, started from the current ratings of the helper the first 
+     * time they are used. Calculating the ratings in any other way, or changing the helper,
+     * the teams, K or the history limit, starts them over, so matches older than that 
+     * are no longer replayed in their place.
+     * 
+     * When a match arrives out of order, the history of the teams is rewritten 
+     * from its date on with the replayed ratings. The matches have no league, 
+     * so the ratings aren't regressed towards the mean.
+     * 
+     * @return The incremental ratings.
+     */
+    public IncrementalRatings getIncrementalRatings() {
+        if (incrementalRatings == null) {
+            final RatingEngine engine = new RatingEngine(eHelper);
+
+            incrementalRatings = new IncrementalRatings(engine);
+            incrementalRatings.setListener(new IncrementalRatings.Listener() {
+                @Override
+                public void replaying(long date) {
+                    for (Team t : eHelper.getTeams().values()) {
+                        t.removeRatingsAfter(date);
+                    }
+                }
+
+                @Override
+                public void rated(int team, long date, double rating) {
+                    Team t = eHelper.getTeam(engine.getIndex().getName(team));
+                    t.addRating(date, rating);
+                    eHelper.getTeams().putIfAbsent(t.getName(), t);
+                }
+            });
+        }
+
+        return incrementalRatings;
+    }
+
+    private void resetIncrementalRatings() {
+        incrementalRatings = null;
+    }
+    
     /**
      * Calculates the probability of the HOME team winning the match.
      * 
@@ -27,11 +27,17 @@ package victor.santiago.soccer.elo.ratings.controller;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
+import victor.santiago.soccer.elo.ratings.helper.SplitMix64Random;
 import victor.santiago.soccer.elo.ratings.model.SimulatedLeague;
+import victor.santiago.soccer.elo.ratings.model.SimulationKernel;
 import victor.santiago.soccer.elo.ratings.model.TeamPerformance;
 
 /**
@@ -40,7 +46,10 @@ import victor.santiago.soccer.elo.ratings.model.TeamPerformance;
  */
 @Data
 @Builder
+@AllArgsConstructor
 public class Simulator {
+
+    private static final int DEFAULT_BATCH = 1000;
     
     private SimulatedLeague sLeague;
     private boolean updateRatings;
@@ -71,4 +80,188 @@ public class Simulator {
         return simulations;
     }
 
+    /**
+     * Simulates a given league N times, counting each simulation into the statistics
+     * as soon as it finishes instead of keeping all of them in memory.
+     *
+     * @param n Number of times to simulate a league
+     * @param statistics Where the simulations are counted
+     * @return The same statistics, for convenience
+     */
+    public Statistics simulate(int n, Statistics statistics) {
+        return simulate(n, statistics, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Same as {@link #simulate(int, Statistics)}, but reproducible: the same seed 
+     * always gives the same statistics. Runs are numbered after the simulations the statistics
+     * already have, so adding more runs later never repeats a season.
+     *
+     * @param n Number of times to simulate a league
+     * @param statistics Where the simulations are counted
+     * @param seed Seed of the random streams
+     * @return The same statistics, for convenience
+     */
+    public Statistics simulate(int n, Statistics statistics, long seed) {
+        return simulate(statistics.getSimulations(), n, seed, statistics, 
+                sLeague.getKernel(useRealResults));
+    }
+
+    /**
+     * Simulates a given league N times in parallel on the common ForkJoinPool.
+     *
+     * @see #simulate(int, int, long, ForkJoinPool)
+     */
+    public Statistics simulate(int n, int workers, long seed) {
+        return simulate(n, workers, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Simulates a given league N times, splitting the runs between a number of workers.
+     * Each worker counts its own runs, which are only merged at the end. Every run has its
+     * own random stream derived from the seed and the number of the run, so the same seed 
+     * always gives the same statistics, no matter the number of workers.
+     *
+     * @param n Number of times to simulate a league
+     * @param workers Number of tasks the runs are split into
+     * @param seed Seed of the random streams
+     * @param pool Pool running the workers
+     * @return The statistics of all the simulations
+     */
+    public Statistics simulate(int n, int workers, long seed, ForkJoinPool pool) {
+        return simulate(n, workers, seed, pool, new Statistics());
+    }
+
+    /**
+     * Same as {@link #simulate(int, int, long, ForkJoinPool)}, counting the simulations
+     * into the given statistics, with its zones and settings. Runs are numbered after the 
+     * simulations the statistics already have.
+     *
+     * @param n Number of times to simulate a league
+     * @param workers Number of tasks the runs are split into
+     * @param seed Seed of the random streams
+     * @param pool Pool running the workers
+     * @param statistics Where the simulations are counted
+     * @return The same statistics, for convenience
+     */
+    public Statistics simulate(int n, int workers, long seed, ForkJoinPool pool, 
+            Statistics statistics) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("There must be at least one worker.");
+        }
+
+        return simulate(statistics.getSimulations(), n, workers, seed, pool, 
+                sLeague.getKernel(useRealResults), statistics);
+    }
+
+    /**
+     * Simulates a given league in batches on the common ForkJoinPool, 
+     * until the statistics are precise enough.
+     *
+     * @see #simulateUntil(double, int, int, int, long, ForkJoinPool)
+     */
+    public Statistics simulateUntil(double maxError, int maxRuns, long seed) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return simulateUntil(maxError, DEFAULT_BATCH, maxRuns, pool.getParallelism(), seed, pool);
+    }
+
+    /**
+     * Simulates a given league in batches, until the error of every championship, top N 
+     * and bottom N probability is at most maxError, or maxRuns is reached. 
+     * A league where most teams have nothing left to play for stops after a few batches.
+     * The runs used are in {@link Statistics#getSimulations()} and the errors 
+     * in {@link Statistics#getMaxError()} and the other error methods.
+     *
+     * Runs are numbered as in {@link #simulate(int, int, long, ForkJoinPool)}, so 
+     * the statistics are the same as simulating the runs used with the same seed.
+     *
+     * @param maxError Largest error accepted, in % (half the width of the 95% interval)
+     * @param batch Number of runs between two checks of the error
+     * @param maxRuns Maximum number of times to simulate the league
+     * @param workers Number of tasks each batch is split into
+     * @param seed Seed of the random streams
+     * @param pool Pool running the workers
+     * @return The statistics of all the simulations
+     */
+    public Statistics simulateUntil(double maxError, int batch, int maxRuns, int workers, long seed,
+            ForkJoinPool pool) {
+        return simulateUntil(maxError, batch, maxRuns, workers, seed, pool, new Statistics());
+    }
+
+    /**
+     * Same as {@link #simulateUntil(double, int, int, int, long, ForkJoinPool)}, counting 
+     * the simulations into the given statistics, so the errors of its zones are checked too.
+     *
+     * @return The same statistics, for convenience
+     */
+    public Statistics simulateUntil(double maxError, int batch, int maxRuns, int workers, long seed,
+            ForkJoinPool pool, Statistics statistics) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("There must be at least one worker.");
+        }
+        if (batch < 1) {
+            throw new IllegalArgumentException("A batch must have at least one run.");
+        }
+
+        SimulationKernel kernel = sLeague.getKernel(useRealResults);
+
+        while (statistics.getSimulations() < maxRuns) {
+            int runs = Math.min(batch, maxRuns - statistics.getSimulations());
+            simulate(statistics.getSimulations(), runs, workers, seed, pool, kernel, statistics);
+
+            if (statistics.getMaxError() <= maxError) {
+                break;
+            }
+        }
+
+        return statistics;
+    }
+
+    private Statistics simulate(int first, int n, int workers, long seed, ForkJoinPool pool,
+            SimulationKernel kernel, Statistics statistics) {
+        List<ForkJoinTask<Statistics>> tasks = new ArrayList<>();
+
+        int from = first;
+        for (int i = 0; i < workers; i++) {
+            final int start = from;
+            final int runs = n / workers + (i < n % workers ? 1 : 0);
+
+            tasks.add(pool.submit(() -> simulate(start, runs, seed, statistics.emptyCopy(), kernel)));
+            from += runs;
+        }
+
+        for (ForkJoinTask<Statistics> task : tasks) {
+            statistics.merge(task.join());
+        }
+
+        return statistics;
+    }
+
+    /**
+     * @return The compiled league that is simulated.
+     */
+    SimulationKernel getKernel() {
+        return sLeague.getKernel(useRealResults);
+    }
+
+    /**
+     * Runs the compiled league reusing the same season and generator, 
+     * so nothing is allocated per run. Only the positions the statistics count are ranked.
+     */
+    Statistics simulate(int first, int runs, long seed, Statistics statistics, 
+            SimulationKernel kernel) {
+        SimulationKernel.Season season = kernel.newSeason();
+        SplitMix64Random random = new SplitMix64Random(seed);
+        int[] teamIndexes = statistics.getTeamIndexes(kernel.getIndex().getNames());
+        int top = statistics.getTopDepth(teamIndexes.length);
+        int bottom = statistics.getBottomDepth(teamIndexes.length);
+
+        for (int run = first; run < first + runs; run++) {
+            kernel.simulate(random.forRun(seed, run), season, updateRatings);
+            statistics.addRanking(teamIndexes, season.rank(top, bottom), top, bottom);
+        }
+
+        return statistics;
+    }
+
 }
@@ -21,124 +21,549 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-
 package victor.santiago.soccer.elo.ratings.controller;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
+import victor.santiago.soccer.elo.ratings.model.Ranking;
 import victor.santiago.soccer.elo.ratings.model.TeamPerformance;
 
 /**
  * Class responsible for generating statistics based on simulations.
  *
+ * Seasons are counted as they are added, only keeping how many times each team finished 
+ * in each position, no matter how many simulations are run. Any range of positions 
+ * (the champion, top N, bottom N or any {@link Zone}) is then read from cumulative counts,
+ * without going through the positions again. 
+ *
+ * By default only the top and bottom positions used by the probabilities and zones are ranked 
+ * and counted. The full distribution of positions, see {@link #getPositionDistribution(String)},
+ * needs {@link #setAllPositions(boolean)}, which sorts the whole table of every season.
+ *
  * @author Victor Santiago
  */
 @Data
 public class Statistics {
-    
+
+    private static final int DEFAULT_ZONE_SIZE = 4;
+
+    //z of a 95% confidence interval
+    private static final double Z = 1.96;
+
     private boolean hasStatistics;
-    private Map<String, Integer> champion;
-    private Map<String, Integer> top4;
-    private Map<String, Integer> bottom4;
+    private int simulations;
+    private int topN;
+    private int bottomN;
+
+    private Map<String, Integer> teamIndex;
+    private List<String> teams;
+    private int[][] positions;
+    private List<Zone> zones;
+
+    //True to count every position, false (the default) to only count the ones 
+    //used by the probabilities and zones
+    private boolean allPositions;
+
+    //positions[team][0] + ... + positions[team][p - 1], only calculated again after new seasons
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int[][] cumulative;
+
+    //Reused to rank the performances of each season
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private long[] keys;
     
     private List<Map<String, TeamPerformance>> leaguePerformances;
 
+    public Statistics() {
+        this(DEFAULT_ZONE_SIZE, DEFAULT_ZONE_SIZE);
+    }
+
+    public Statistics(int topN, int bottomN) {
+        this(new ArrayList<Map<String, TeamPerformance>>(), topN, bottomN);
+    }
+
     public Statistics(List<Map<String, TeamPerformance>> performances) {
+        this(performances, DEFAULT_ZONE_SIZE, DEFAULT_ZONE_SIZE);
+    }
+
+    public Statistics(List<Map<String, TeamPerformance>> performances, int topN, int bottomN) {
         this.leaguePerformances = performances;
-        this.champion = new HashMap<>();
-        this.top4 = new HashMap<>();
-        this.bottom4 = new HashMap<>();
+        this.topN = topN;
+        this.bottomN = bottomN;
+        this.teamIndex = new HashMap<>();
+        this.teams = new ArrayList<>();
+        this.positions = new int[0][];
+        this.zones = new ArrayList<>();
+        this.allPositions = false;
+        this.keys = new long[0];
+    }
+
+    /**
+     * @return Empty statistics with the same zones and settings, e.g. for a worker 
+     *         whose statistics will be merged into these.
+     */
+    public Statistics emptyCopy() {
+        Statistics copy = new Statistics(new ArrayList<Map<String, TeamPerformance>>(), topN, bottomN);
+        copy.setZones(new ArrayList<>(zones));
+        copy.setAllPositions(allPositions);
+        return copy;
     }
     
     public void generateStatistics() {
-        List<TeamPerformance> currentPerformances;
-
-        int size;
         for (Map<String, TeamPerformance> league : leaguePerformances) {
-            currentPerformances = new ArrayList<>(league.values());
-            Collections.sort(currentPerformances);
-            size = currentPerformances.size();
-            
-            increaseChampion(currentPerformances.get(size - 1));
-            
-            increaseTop4(currentPerformances.get(size - 1));
-            increaseTop4(currentPerformances.get(size - 2));
-            increaseTop4(currentPerformances.get(size - 3));
-            increaseTop4(currentPerformances.get(size - 4));
-
-            increaseBottom4(currentPerformances.get(0));
-            increaseBottom4(currentPerformances.get(1));
-            increaseBottom4(currentPerformances.get(2));
-            increaseBottom4(currentPerformances.get(3));   
+            addPerformances(league);
         }
     }
-    
-    private void increaseChampion(TeamPerformance t) {
-        if (!champion.containsKey(t.getTeam())) {
-            champion.put(t.getTeam(), 1);
-            return;
+
+    /**
+     * Counts a single simulated league right away, without keeping it around.
+     *
+     * @param league The team performances of one simulation.
+     */
+    public void addPerformances(Map<String, TeamPerformance> league) {
+        int size = league.size();
+        if (keys.length < size) {
+            keys = new long[size];
         }
-        
-        int currentAmount = champion.get(t.getTeam()) + 1;
-        
-        champion.put(t.getTeam(), currentAmount);        
+
+        int i = 0;
+        for (TeamPerformance performance : league.values()) {
+            int team = getTeamIndex(performance.getTeam());
+            if (team >= Ranking.MAX_TEAMS) {
+                throw new IllegalArgumentException("There can't be more than " 
+                        + Ranking.MAX_TEAMS + " teams.");
+            }
+
+            keys[i++] = Ranking.getKey(performance.getPoints(), performance.getWins(),
+                    performance.getGoals(), team);
+        }
+
+        int top = getTopDepth(size);
+        int bottom = getBottomDepth(size);
+        Ranking.rank(keys, size, top, bottom);
+
+        for (int position = 0; position < size; position++) {
+            if (position < top || position >= size - bottom) {
+                countPosition(Ranking.getId(keys[position]), position);
+            }
+        }
+
+        simulations++;
+        hasStatistics = true;
+        cumulative = null;
     }
-    
-    private void increaseTop4(TeamPerformance t) {
-        if (!top4.containsKey(t.getTeam())) {
-            top4.put(t.getTeam(), 1);
-            return;
+
+    /**
+     * Counts a single simulated league given as a ranking of team ids, which is how
+     * the compiled simulations report it, without creating any object.
+     *
+     * @param teamIndexes The index in these statistics of each team id, see {@link #getTeamIndexes(List)}.
+     * @param ranking The team ids from the champion to the last.
+     */
+    public void addRanking(int[] teamIndexes, int[] ranking) {
+        addRanking(teamIndexes, ranking, ranking.length, 0);
+    }
+
+    /**
+     * Same as {@link #addRanking(int[], int[])}, for a ranking where only the first top 
+     * and the last bottom positions are right. Only those are counted.
+     */
+    public void addRanking(int[] teamIndexes, int[] ranking, int top, int bottom) {
+        int size = ranking.length;
+
+        for (int position = 0; position < size; position++) {
+            if (position < top || position >= size - bottom) {
+                countPosition(teamIndexes[ranking[position]], position);
+            }
         }
-        
-        int currentAmount = top4.get(t.getTeam()) + 1;
-        
-        top4.put(t.getTeam(), currentAmount);        
+
+        simulations++;
+        hasStatistics = true;
+        cumulative = null;
     }
-    
-    private void increaseBottom4(TeamPerformance t) {
-        if (!bottom4.containsKey(t.getTeam())) {
-            bottom4.put(t.getTeam(), 1);
-            return;
+
+    /**
+     * @param size Number of teams in the league.
+     * @return How many positions from the top have to be ranked.
+     */
+    public int getTopDepth(int size) {
+        if (allPositions) {
+            return size;
         }
+
+        //At least the champion, the top N and the top 4
+        int depth = Math.max(Math.max(1, topN), DEFAULT_ZONE_SIZE);
+        for (Zone zone : zones) {
+            if (zone.getFrom() >= 0 || zone.getTo() >= 0) {
+                depth = Math.max(depth, zone.getLastPosition(size) + 1);
+            }
+        }
+
+        return Math.min(depth, size);
+    }
+
+    /**
+     * @param size Number of teams in the league.
+     * @return How many positions from the bottom have to be ranked.
+     */
+    public int getBottomDepth(int size) {
+        if (allPositions) {
+            return 0;
+        }
+
+        //At least the bottom N and the bottom 4
+        int depth = Math.max(bottomN, DEFAULT_ZONE_SIZE);
+        for (Zone zone : zones) {
+            if (zone.getFrom() < 0 && zone.getTo() < 0) {
+                depth = Math.max(depth, size - zone.getFirstPosition(size));
+            }
+        }
+
+        return Math.min(depth, size);
+    }
+
+    /**
+     * @param names The team names, by id.
+     * @return The index of each team in these statistics, adding the teams that are not here yet.
+     */
+    public int[] getTeamIndexes(List<String> names) {
+        int[] indexes = new int[names.size()];
+
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = getTeamIndex(names.get(i));
+        }
+
+        return indexes;
+    }
+
+    private void countPosition(int team, int position) {
+        if (positions[team].length <= position) {
+            positions[team] = Arrays.copyOf(positions[team], position + 1);
+        }
+        positions[team][position]++;
+    }
+
+    /**
+     * Adds the counts of another Statistics into this one, e.g. the partial
+     * results of a worker simulating part of the runs.
+     *
+     * @param other The statistics to add.
+     */
+    public void merge(Statistics other) {
+        for (int i = 0; i < other.getTeams().size(); i++) {
+            int team = getTeamIndex(other.getTeams().get(i));
+
+            int[] otherPositions = other.getPositions()[i];
+            if (positions[team].length < otherPositions.length) {
+                positions[team] = Arrays.copyOf(positions[team], otherPositions.length);
+            }
+            for (int p = 0; p < otherPositions.length; p++) {
+                positions[team][p] += otherPositions[p];
+            }
+        }
+
+        simulations += other.getSimulations();
+        hasStatistics = hasStatistics || other.isHasStatistics();
+        cumulative = null;
+    }
+
+    private int getTeamIndex(String team) {
+        Integer index = teamIndex.get(team);
+
+        if (index != null) {
+            return index;
+        }
+
+        index = teams.size();
+        teamIndex.put(team, index);
+        teams.add(team);
+
+        positions = Arrays.copyOf(positions, index + 1);
+        positions[index] = new int[0];
+        cumulative = null;
+
+        return index;
+    }
+
+    /**
+     * Adds a zone, e.g. new Zone("Relegation", -4, -1).
+     *
+     * @param zone The zone.
+     */
+    public void addZone(Zone zone) {
+        zones.add(zone);
+    }
+
+    public void addZone(String name, int from, int to) {
+        addZone(new Zone(name, from, to));
+    }
+
+    public Zone getZone(String name) {
+        for (Zone zone : zones) {
+            if (zone.getName().equals(name)) {
+                return zone;
+            }
+        }
+
+        throw new IllegalArgumentException("There is no zone named " + name + ".");
+    }
+
+    /**
+     * @param team The team name.
+     * @param zone The zone name.
+     * @return The % of simulations in which the team finished in the zone.
+     */
+    public double getZoneProbability(String team, String zone) {
+        if (simulations == 0) {
+            return 0.00;
+        }
+
+        return ((double) getZoneCount(team, getZone(zone)) / (double) simulations) * 100;
+    }
+
+    /**
+     * @param team The team name.
+     * @param zone The zone name.
+     * @return The error of the zone probability, in %.
+     */
+    public double getZoneError(String team, String zone) {
+        return getError(getZoneCount(team, getZone(zone)));
+    }
+
+    private int getZoneCount(String team, Zone zone) {
+        int size = teams.size();
+        return getPositionsCount(team, zone.getFirstPosition(size), zone.getLastPosition(size));
+    }
+
+    public Map<String, Double> getAllTeamsZoneProbability(String zone) {
+        Map<String, Double> result = new HashMap<>();
         
-        int currentAmount = bottom4.get(t.getTeam()) + 1;
-        
-        bottom4.put(t.getTeam(), currentAmount);        
+        for (String team : teams) {
+            result.put(team, getZoneProbability(team, zone));
+        }
+
+        return result;
     }
     
     public double getChampionshipProbability(String team) {
-        if (!champion.containsKey(team)) {
-            return 0.00;
+        return getPositionsProbability(team, 0, 0);
+    }
+
+    /**
+     * @param team The team name.
+     * @return The % of simulations in which the team finished in the top N.
+     */
+    public double getTopProbability(String team) {
+        return getPositionsProbability(team, 0, topN - 1);
+    }
+
+    /**
+     * @param team The team name.
+     * @return The % of simulations in which the team finished in the bottom N.
+     */
+    public double getBottomProbability(String team) {
+        int size = teams.size();
+        return getPositionsProbability(team, Math.max(0, size - bottomN), size - 1);
+    }
+
+    /**
+     * The error of a probability is half the width of its 95% Wilson score interval,
+     * which is still meaningful when a team never (or always) finishes in a zone.
+     *
+     * @param team The team name.
+     * @return The error of the championship probability, in %.
+     */
+    public double getChampionshipError(String team) {
+        return getError(getPositionsCount(team, 0, 0));
+    }
+
+    /**
+     * @param team The team name.
+     * @return The error of the top N probability, in %.
+     */
+    public double getTopError(String team) {
+        return getError(getPositionsCount(team, 0, topN - 1));
+    }
+
+    /**
+     * @param team The team name.
+     * @return The error of the bottom N probability, in %.
+     */
+    public double getBottomError(String team) {
+        int size = teams.size();
+        return getError(getPositionsCount(team, Math.max(0, size - bottomN), size - 1));
+    }
+
+    /**
+     * @return The largest error of the championship, top N, bottom N and zone probabilities 
+     *         of all teams, in %.
+     */
+    public double getMaxError() {
+        if (simulations == 0) {
+            return 100.00;
         }
 
-        return ((double) champion.get(team) / (double) leaguePerformances.size()) * 100;
+        double max = 0;
+        for (String team : teams) {
+            max = Math.max(max, getChampionshipError(team));
+            max = Math.max(max, getTopError(team));
+            max = Math.max(max, getBottomError(team));
+
+            for (Zone zone : zones) {
+                max = Math.max(max, getError(getZoneCount(team, zone)));
+            }
+        }
+
+        return max;
     }
-    
-    public double getTop4Probability(String team) {
-        if (!top4.containsKey(team)) {
-            return 0.00;
+
+    private double getError(int count) {
+        if (simulations == 0) {
+            return 100.00;
         }
 
-        return ((double) top4.get(team) / (double) leaguePerformances.size()) * 100;
+        double n = simulations;
+        double p = count / n;
+        double halfWidth = Z * Math.sqrt(p * (1 - p) / n + Z * Z / (4 * n * n)) / (1 + Z * Z / n);
+
+        return halfWidth * 100;
+    }
+
+    public double getTop4Probability(String team) {
+        return getPositionsProbability(team, 0, 3);
     }
     
     public double getBottom4Probability(String team) {
-        if (!bottom4.containsKey(team)) {
+        int size = teams.size();
+        return getPositionsProbability(team, Math.max(0, size - 4), size - 1);
+    }
+
+    /**
+     * @param team The team name.
+     * @param position The final position, 0 being the champion.
+     * @return The % of simulations in which the team finished in the given position.
+     */
+    public double getPositionProbability(String team, int position) {
+        return getPositionsProbability(team, position, position);
+    }
+
+    /**
+     * @param team The team name.
+     * @return The % of simulations in which the team finished in each position, 0 being the champion.
+     *         Positions that are not counted, unless {@link #setAllPositions(boolean)} is set, are 0.
+     */
+    public double[] getPositionDistribution(String team) {
+        double[] distribution = new double[teams.size()];
+
+        for (int p = 0; p < distribution.length; p++) {
+            distribution[p] = getPositionProbability(team, p);
+        }
+
+        return distribution;
+    }
+
+    /**
+     * @param team The team name.
+     * @param from The first position, 0 being the champion.
+     * @param to The last position.
+     * @return The % of simulations in which the team finished between the given positions.
+     */
+    public double getPositionsProbability(String team, int from, int to) {
+        if (simulations == 0) {
             return 0.00;
         }
 
-        return ((double) bottom4.get(team) / (double) leaguePerformances.size()) * 100;
+        return ((double) getPositionsCount(team, from, to) / (double) simulations) * 100;
+    }
+
+    private int getPositionsCount(String team, int from, int to) {
+        Integer index = teamIndex.get(team);
+
+        if (index == null || from > to) {
+            return 0;
+        }
+
+        int[] counts = getCumulative()[index];
+        int last = counts.length - 1;
+
+        return counts[Math.min(Math.max(to + 1, 0), last)] - counts[Math.min(Math.max(from, 0), last)];
+    }
+
+    private int[][] getCumulative() {
+        if (cumulative == null) {
+            int[][] sums = new int[teams.size()][];
+
+            for (int team = 0; team < sums.length; team++) {
+                int[] counts = positions[team];
+                sums[team] = new int[counts.length + 1];
+
+                for (int p = 0; p < counts.length; p++) {
+                    sums[team][p + 1] = sums[team][p] + counts[p];
+                }
+            }
+
+            cumulative = sums;
+        }
+
+        return cumulative;
+    }
+    
+    /**
+     * @return Number of simulations won by each team that won at least one.
+     * @deprecated The counts are no longer kept per zone, use {@link #getChampionshipProbability(String)}.
+     */
+    @Deprecated
+    public Map<String, Integer> getChampion() {
+        return getPositionsCounts(0, 0);
+    }
+
+    /**
+     * @return Number of simulations in which each team finished in the top 4, 
+     *         for the teams that did at least once.
+     * @deprecated The counts are no longer kept per zone, use {@link #getTop4Probability(String)}.
+     */
+    @Deprecated
+    public Map<String, Integer> getTop4() {
+        return getPositionsCounts(0, 3);
+    }
+
+    /**
+     * @return Number of simulations in which each team finished in the bottom 4, 
+     *         for the teams that did at least once.
+     * @deprecated The counts are no longer kept per zone, use {@link #getBottom4Probability(String)}.
+     */
+    @Deprecated
+    public Map<String, Integer> getBottom4() {
+        int size = teams.size();
+        return getPositionsCounts(Math.max(0, size - 4), size - 1);
+    }
+
+    private Map<String, Integer> getPositionsCounts(int from, int to) {
+        Map<String, Integer> result = new HashMap<>();
+
+        for (String team : teams) {
+            int count = getPositionsCount(team, from, to);
+            if (count > 0) {
+                result.put(team, count);
+            }
+        }
+
+        return result;
     }
     
     public Map<String, Double> getAllTeamsChampionshipProbability() {
         Map<String, Double> result = new HashMap<>();
-        List<String> teams = new ArrayList<>(leaguePerformances.get(0).keySet());
         
         for (String team : teams) {
             result.put(team, getChampionshipProbability(team));
@@ -149,7 +574,6 @@ public class Statistics {
 
     public Map<String, Double> getAllTeamsTop4Probability() {
         Map<String, Double> result = new HashMap<>();
-        List<String> teams = new ArrayList<>(leaguePerformances.get(0).keySet());
         
         for (String team : teams) {
             result.put(team, getTop4Probability(team));
@@ -160,7 +584,6 @@ public class Statistics {
 
     public Map<String, Double> getAllTeamsBottom4Probability() {
         Map<String, Double> result = new HashMap<>();
-        List<String> teams = new ArrayList<>(leaguePerformances.get(0).keySet());
         
         for (String team : teams) {
             result.put(team, getBottom4Probability(team));
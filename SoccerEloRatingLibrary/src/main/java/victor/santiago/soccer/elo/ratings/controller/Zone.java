@@ -0,0 +1,60 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.controller;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A range of final positions of a league, e.g. the Champions League spots or the relegation.
+ *
+ * Positions start at 0 for the champion. Negative positions count from the bottom, -1 being
+ * the last team, so a zone like the relegation works for any number of teams.
+ *
+ * @author Victor Santiago
+ */
+@Data
+@AllArgsConstructor
+public class Zone {
+
+    private String name;
+    private int from;
+    private int to;
+
+    /**
+     * @param size Number of teams in the league.
+     * @return The first position of the zone.
+     */
+    public int getFirstPosition(int size) {
+        return Math.max(0, from < 0 ? size + from : from);
+    }
+
+    /**
+     * @param size Number of teams in the league.
+     * @return The last position of the zone.
+     */
+    public int getLastPosition(int size) {
+        return Math.min(size - 1, to < 0 ? size + to : to);
+    }
+}
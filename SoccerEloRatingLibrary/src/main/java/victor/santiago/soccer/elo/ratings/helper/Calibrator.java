@@ -0,0 +1,381 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import victor.santiago.soccer.elo.ratings.model.EloRating;
+import victor.santiago.soccer.elo.ratings.model.League;
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.MatchTable;
+import victor.santiago.soccer.elo.ratings.model.TeamIndex;
+
+/**
+ * Finds the settings that predict a history of matches best.
+ *
+ * The matches of the leagues are sorted by date and compiled once into columns of primitives, 
+ * and each combination of settings replays them from the initial ratings like 
+ * {@link EloHelper#updateRatingsInDateOrder(List)}, the way the calculator does, regressing 
+ * the teams of each league towards the mean after its last match unless told otherwise. 
+ * Before each match, the expected result of the home team is compared with the real one 
+ * (1 for a win, 0.5 for a draw, 0 for a loss), and the combinations are ranked by the mean 
+ * Brier score or log-loss.
+ *
+ * @author Victor Santiago
+ */
+public class Calibrator {
+
+    private final int teams;
+    private final int[] home;
+    private final int[] away;
+    private final double[] results;
+    private final double[] goalDifferenceIndexes;
+    private final double[] customK;
+
+    //Teams regressed after each match, null after the matches that don't end a league
+    private final int[][] regressions;
+
+    //Matches at the start that only update the ratings, while they are still settling
+    private int warmUp;
+
+    private boolean regressTowardMean = true;
+    private double regressionMean = EloHelper.DEFAULT_REGRESSION_MEAN;
+
+    /**
+     * @param leagues The leagues. Their matches are replayed sorted by date.
+     */
+    public Calibrator(List<League> leagues) {
+        List<Match> matches = new ArrayList<>();
+        Map<Match, Integer> competitions = new IdentityHashMap<>();
+        for (int l = 0; l < leagues.size(); l++) {
+            for (Match m : leagues.get(l).getMatches()) {
+                matches.add(m);
+                competitions.put(m, l);
+            }
+        }
+
+        Collections.sort(matches);
+
+        TeamIndex index = new TeamIndex();
+        MatchTable table = MatchTable.compile(matches, index);
+
+        //Each league ends at its last match in date order
+        int[] lastMatch = new int[leagues.size()];
+        for (int i = 0; i < matches.size(); i++) {
+            lastMatch[competitions.get(matches.get(i))] = i;
+        }
+
+        regressions = new int[table.size()][];
+        for (int l = 0; l < leagues.size(); l++) {
+            if (!leagues.get(l).getMatches().isEmpty()) {
+                addRegression(lastMatch[l], getTeams(leagues.get(l), index));
+            }
+        }
+
+        int size = table.size();
+        teams = index.size();
+        home = new int[size];
+        away = new int[size];
+        results = new double[size];
+        goalDifferenceIndexes = new double[size];
+        customK = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            int homeGoals = table.getHomeGoals(i);
+            int awayGoals = table.getAwayGoals(i);
+
+            home[i] = table.getHome(i);
+            away[i] = table.getAway(i);
+            results[i] = homeGoals == awayGoals ? 0.5 : homeGoals > awayGoals ? 1.0 : 0.0;
+            goalDifferenceIndexes[i] = EloHelper.getGoalDifferenceIndex(homeGoals, awayGoals);
+            customK[i] = table.getCustomK(i);
+        }
+    }
+
+    private static int[] getTeams(League l, TeamIndex index) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Match m : l.getMatches()) {
+            ids.add(index.getId(m.getHome()));
+            ids.add(index.getId(m.getAway()));
+        }
+
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    //Two leagues can end on the same match, their teams are regressed one league after the other
+    private void addRegression(int position, int[] teams) {
+        int[] current = regressions[position];
+
+        if (current == null) {
+            regressions[position] = teams;
+        } else {
+            int[] both = Arrays.copyOf(current, current.length + teams.length);
+            System.arraycopy(teams, 0, both, current.length, teams.length);
+            regressions[position] = both;
+        }
+    }
+
+    public int getWarmUp() {
+        return warmUp;
+    }
+
+    /**
+     * @param warmUp Number of matches at the start that aren't scored.
+     */
+    public void setWarmUp(int warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public boolean isRegressTowardMean() {
+        return regressTowardMean;
+    }
+
+    /**
+     * @param regressTowardMean False to replay with no regression, like a calculator 
+     *                          that doesn't regress towards the mean.
+     */
+    public void setRegressTowardMean(boolean regressTowardMean) {
+        this.regressTowardMean = regressTowardMean;
+    }
+
+    public double getRegressionMean() {
+        return regressionMean;
+    }
+
+    /**
+     * @param regressionMean Rating the teams regress towards.
+     */
+    public void setRegressionMean(double regressionMean) {
+        this.regressionMean = regressionMean;
+    }
+
+    /**
+     * @return Every combination of the given values.
+     */
+    public static List<Parameters> getGrid(double[] ks, double[] regressionDivisors, 
+            double[] homeAdvantages, double[] goalDifferenceWeights) {
+        List<Parameters> grid = new ArrayList<>();
+
+        for (double k : ks) {
+            for (double divisor : regressionDivisors) {
+                for (double homeAdvantage : homeAdvantages) {
+                    for (double weight : goalDifferenceWeights) {
+                        grid.add(new Parameters(k, divisor, homeAdvantage, weight));
+                    }
+                }
+            }
+        }
+
+        return grid;
+    }
+
+    /**
+     * Scores a grid in parallel on the common ForkJoinPool.
+     *
+     * @see #calibrate(List, Score, int, ForkJoinPool)
+     */
+    public List<Result> calibrate(List<Parameters> grid, Score score) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        return calibrate(grid, score, pool.getParallelism(), pool);
+    }
+
+    /**
+     * Scores every combination of a grid, splitting them between a number of workers.
+     *
+     * @param grid The combinations to try.
+     * @param score How the predictions are scored.
+     * @param workers Number of tasks the combinations are split into.
+     * @param pool Pool running the workers.
+     * @return The results, best (lowest score) first.
+     */
+    public List<Result> calibrate(List<Parameters> grid, Score score, int workers, 
+            ForkJoinPool pool) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("There must be at least one worker.");
+        }
+
+        Result[] results = new Result[grid.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+
+        for (int w = 0; w < Math.min(workers, grid.size()); w++) {
+            final int first = w;
+
+            tasks.add(pool.submit(() -> {
+                double[] ratings = new double[teams];
+
+                for (int i = first; i < results.length; i += workers) {
+                    results[i] = evaluate(grid.get(i), score, ratings);
+                }
+            }));
+        }
+
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        List<Result> sorted = new ArrayList<>(Arrays.asList(results));
+        sorted.sort(Comparator.comparingDouble(Result::getScore));
+
+        return sorted;
+    }
+
+    /**
+     * @param parameters The settings to replay the leagues with.
+     * @param score How the predictions are scored.
+     * @return The mean score of the predictions with those settings.
+     */
+    public Result evaluate(Parameters parameters, Score score) {
+        return evaluate(parameters, score, new double[teams]);
+    }
+
+    private Result evaluate(Parameters parameters, Score score, double[] ratings) {
+        Arrays.fill(ratings, EloRating.INITIAL_RATING);
+
+        double defaultK = parameters.getK();
+        double divisor = parameters.getRegressionDivisor();
+        double homeAdvantage = parameters.getHomeAdvantage();
+        double weight = parameters.getGoalDifferenceWeight();
+        double total = 0;
+
+        for (int i = 0; i < home.length; i++) {
+            int h = home[i];
+            int a = away[i];
+            double ratingHome = ratings[h];
+            double ratingAway = ratings[a];
+            double playingHome = ratingHome + homeAdvantage;
+
+            double expectedHome = EloHelper.getWinningExpectancy(playingHome, ratingAway);
+            double expectedAway = EloHelper.getWinningExpectancy(ratingAway, playingHome);
+
+            if (i >= warmUp) {
+                total += score.of(expectedHome, results[i]);
+            }
+
+            double k = customK[i] != 0 ? customK[i] : defaultK;
+            double gIndex = 1.00 + weight * (goalDifferenceIndexes[i] - 1.00);
+
+            ratings[h] = ratingHome + k * gIndex * (results[i] - expectedHome);
+            ratings[a] = ratingAway + k * gIndex * ((1.0 - results[i]) - expectedAway);
+
+            if (regressTowardMean && regressions[i] != null) {
+                for (int id : regressions[i]) {
+                    ratings[id] = EloHelper.getRegressedRating(ratings[id], regressionMean, divisor);
+                }
+            }
+        }
+
+        int scored = Math.max(0, home.length - warmUp);
+        return new Result(parameters, scored == 0 ? 0 : total / scored);
+    }
+
+    /**
+     * Ways of scoring a prediction, lower is better.
+     */
+    public enum Score {
+
+        /**
+         * Squared difference between the expected and the real result.
+         */
+        BRIER {
+            @Override
+            public double of(double expected, double result) {
+                double error = expected - result;
+                return error * error;
+            }
+        },
+
+        /**
+         * Cross-entropy of the expected and the real result. A draw counts as half a win.
+         */
+        LOG_LOSS {
+            @Override
+            public double of(double expected, double result) {
+                double p = Math.min(Math.max(expected, MIN_PROBABILITY), 1.0 - MIN_PROBABILITY);
+                return -(result * Math.log(p) + (1.0 - result) * Math.log(1.0 - p));
+            }
+        };
+
+        private static final double MIN_PROBABILITY = 1e-15;
+
+        /**
+         * @param expected Expected result of the home team, between 0 and 1.
+         * @param result Real result of the home team: 1, 0.5 or 0.
+         * @return The score of the prediction.
+         */
+        public abstract double of(double expected, double result);
+    }
+
+    /**
+     * Settings of the ratings. The defaults are the ones {@link EloHelper} uses, 
+     * and the ones found can be given to the calculator with 
+     * {@link victor.santiago.soccer.elo.ratings.controller.EloCalculator#setParameters(Parameters)}.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Parameters {
+
+        private double k;
+
+        //What the distance to the mean is divided by after each league, 3 removes a third
+        private double regressionDivisor;
+
+        //Rating points added to the home team when calculating the expected results
+        private double homeAdvantage;
+
+        //1 uses the goal difference index as is, 0 ignores the goal difference
+        private double goalDifferenceWeight;
+
+        public Parameters() {
+            this(20);
+        }
+
+        public Parameters(double k) {
+            this(k, EloHelper.DEFAULT_REGRESSION_DIVISOR, 0, 1);
+        }
+    }
+
+    /**
+     * The score of some settings.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Result {
+
+        private Parameters parameters;
+        private double score;
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Dates as milliseconds since the epoch, in the default time zone like java.util.Date.
+ *
+ * The formats are the ones the library always used, e.g. "Dec 11, 2016 12:00:00 AM" in the JSON 
+ * files. The formatters are cached (they are thread safe) and the JSON format is parsed by hand,
+ * which is a lot faster than creating a SimpleDateFormat each time. Like SimpleDateFormat with 
+ * "HH" and "aa", the hour is read as 0-23 and the AM/PM marker is ignored, so 12:00:00 AM is noon.
+ * Anything else SimpleDateFormat would accept is still parsed by it.
+ *
+ * @author Victor Santiago
+ */
+public final class Dates {
+
+    public static final String JSON_PATTERN = "MMM dd, yyyy HH:mm:ss aa";
+
+    private static final DateTimeFormatter JSON_FORMAT = 
+            DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm:ss a", Locale.US);
+    private static final DateTimeFormatter DAY_FORMAT = 
+            DateTimeFormatter.ofPattern("d-MMM-yyyy", Locale.US);
+    private static final DateTimeFormatter SHORT_FORMAT = 
+            DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final String[] MONTHS = {
+        "january", "february", "march", "april", "may", "june", 
+        "july", "august", "september", "october", "november", "december"
+    };
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private Dates() { }
+
+    /**
+     * @param date A date like "Dec 11, 2016 12:00:00 AM".
+     * @return The date in milliseconds since the epoch.
+     * @throws ParseException If it's not a date.
+     */
+    public static long parse(String date) throws ParseException {
+        long parsed = parseFast(date);
+
+        if (parsed != Long.MIN_VALUE) {
+            return parsed;
+        }
+
+        return new SimpleDateFormat(JSON_PATTERN, Locale.US).parse(date).getTime();
+    }
+
+    /**
+     * @return The date, or Long.MIN_VALUE if it isn't exactly in the JSON format
+     *         or it's when the clocks change.
+     */
+    private static long parseFast(String s) {
+        int pos = 0;
+        while (pos < s.length() && Character.isLetter(s.charAt(pos))) {
+            pos++;
+        }
+        int month = getMonth(s, 0, pos);
+
+        long day = readNumber(s, skipSpaces(s, pos));
+        pos = expect(s, getEnd(day), ',');
+        long year = readNumber(s, skipSpaces(s, pos));
+        long hour = readNumber(s, skipSpaces(s, getEnd(year)));
+        long minute = readNumber(s, expect(s, getEnd(hour), ':'));
+        long second = readNumber(s, expect(s, getEnd(minute), ':'));
+        pos = skipSpaces(s, getEnd(second));
+
+        //The AM/PM marker is ignored, the hour is already 0-23
+        boolean marker = s.regionMatches(true, pos, "AM", 0, 2) 
+                || s.regionMatches(true, pos, "PM", 0, 2);
+
+        if (month == 0 || second < 0 || !marker || pos + 2 != s.length()) {
+            return Long.MIN_VALUE;
+        }
+
+        try {
+            LocalDateTime local = LocalDateTime.of(getValue(year), month, getValue(day), 
+                    getValue(hour), getValue(minute), getValue(second));
+            return toMillis(local, ZoneId.systemDefault());
+        } catch (DateTimeException e) {
+            //Out of range, SimpleDateFormat is lenient about it
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * @return The number starting at pos and the position after it, packed in a long,
+     *         or -1 if there's no number there.
+     */
+    private static long readNumber(String s, int pos) {
+        if (pos < 0) {
+            return -1;
+        }
+
+        int start = pos;
+        int value = 0;
+        while (pos < s.length() && pos - start < 9 && Character.isDigit(s.charAt(pos))) {
+            value = value * 10 + (s.charAt(pos) - '0');
+            pos++;
+        }
+
+        return pos == start ? -1 : ((long) value << 32) | pos;
+    }
+
+    private static int getValue(long number) {
+        return (int) (number >>> 32);
+    }
+
+    private static int getEnd(long number) {
+        return number < 0 ? -1 : (int) number;
+    }
+
+    private static int expect(String s, int pos, char c) {
+        return pos >= 0 && pos < s.length() && s.charAt(pos) == c ? pos + 1 : -1;
+    }
+
+    private static int skipSpaces(String s, int pos) {
+        while (pos >= 0 && pos < s.length() && s.charAt(pos) == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int getMonth(String s, int start, int end) {
+        int length = end - start;
+
+        for (int month = 0; month < MONTHS.length; month++) {
+            String name = MONTHS[month];
+
+            if ((length == 3 || length == name.length()) && length <= name.length()
+                    && s.regionMatches(true, start, name, 0, length)) {
+                return month + 1;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return The date like "Dec 11, 2016 00:00:00 AM", as written in the JSON files.
+     */
+    public static String format(long date) {
+        return JSON_FORMAT.format(toZonedDateTime(date));
+    }
+
+    /**
+     * @return The date like "11-Dec-2016".
+     */
+    public static String formatDay(long date) {
+        return DAY_FORMAT.format(toZonedDateTime(date));
+    }
+
+    /**
+     * @return The date like "11/12/2016".
+     */
+    public static String formatShort(long date) {
+        return SHORT_FORMAT.format(toZonedDateTime(date));
+    }
+
+    /**
+     * @return The year of the date.
+     */
+    public static int getYear(long date) {
+        return toZonedDateTime(date).getYear();
+    }
+
+    /**
+     * @return The last millisecond of the day of the date.
+     */
+    public static long getEndOfDay(long date) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate next = toZonedDateTime(date, zone).toLocalDate().plusDays(1);
+
+        return next.atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+    }
+
+    /**
+     * Same as adding a day with a Calendar: the same time on the next day, 
+     * which isn't always 24 hours later when the time zone has daylight saving time.
+     */
+    public static long addOneDay(long date) {
+        ZoneId zone = ZoneId.systemDefault();
+
+        if (zone.getRules().isFixedOffset()) {
+            return date + DAY;
+        }
+
+        long next = toMillis(toZonedDateTime(date, zone).toLocalDateTime().plusDays(1), zone);
+        if (next != Long.MIN_VALUE) {
+            return next;
+        }
+
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(date);
+        c.add(Calendar.DATE, 1);
+        return c.getTimeInMillis();
+    }
+
+    /**
+     * @return The local time in milliseconds, or Long.MIN_VALUE when the clocks change at that
+     *         time (Calendar resolves those its own way).
+     */
+    private static long toMillis(LocalDateTime local, ZoneId zone) {
+        List<ZoneOffset> offsets = zone.getRules().getValidOffsets(local);
+
+        if (offsets.size() != 1) {
+            return Long.MIN_VALUE;
+        }
+
+        return local.toInstant(offsets.get(0)).toEpochMilli();
+    }
+
+    private static ZonedDateTime toZonedDateTime(long date) {
+        return toZonedDateTime(date, ZoneId.systemDefault());
+    }
+
+    private static ZonedDateTime toZonedDateTime(long date, ZoneId zone) {
+        return Instant.ofEpochMilli(date).atZone(zone);
+    }
+
+    /**
+     * Reads and writes dates in milliseconds as the JSON format, for fields annotated 
+     * with {@code @JsonAdapter(Dates.Adapter.class)}.
+     */
+    public static final class Adapter extends TypeAdapter<Long> {
+
+        @Override
+        public void write(JsonWriter out, Long date) throws IOException {
+            if (date == null) {
+                out.nullValue();
+            } else {
+                out.value(format(date));
+            }
+        }
+
+        @Override
+        public Long read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            String date = in.nextString();
+            try {
+                return parse(date);
+            } catch (ParseException e) {
+                throw new JsonSyntaxException(date, e);
+            }
+        }
+    }
+}
@@ -25,11 +25,16 @@
 package victor.santiago.soccer.elo.ratings.helper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -39,6 +44,7 @@ import victor.santiago.soccer.elo.ratings.model.EloRating;
 import victor.santiago.soccer.elo.ratings.model.League;
 import victor.santiago.soccer.elo.ratings.model.Match;
 import victor.santiago.soccer.elo.ratings.model.Team;
+import victor.santiago.soccer.elo.ratings.model.TeamIndex;
 
 /**
  * Helper class to calculate Elo ratings.
@@ -49,19 +55,76 @@ import victor.santiago.soccer.elo.ratings.model.Team;
 @Builder
 @AllArgsConstructor
 public class EloHelper {
+
+    public static final double DEFAULT_REGRESSION_MEAN = 1505.00;
+    public static final double DEFAULT_REGRESSION_DIVISOR = 3.00;
     
     private Map<String, Team> teams;
     private double k;
     private boolean regressTowardMean;
 
+    //Rating the teams regress towards, and what the distance to it is divided by
+    //when regressing, 3 removes a third of it
+    private double regressionMean;
+    private double regressionDivisor;
+
+    //Rating points added to the home team when calculating the expected results
+    private double homeAdvantage;
+
+    //1 uses the goal difference index as is, 0 ignores the goal difference
+    private double goalDifferenceWeight;
+
+    //Maximum number of ratings kept per team, 0 keeps the whole history.
+    private int historyLimit;
+
+    //Where the expected results are scored during replays, null to skip it.
+    private PredictionMetrics metrics;
+
     public EloHelper() {
         k = 20;
         teams = new HashMap<>();
         regressTowardMean = true;
+        regressionMean = DEFAULT_REGRESSION_MEAN;
+        regressionDivisor = DEFAULT_REGRESSION_DIVISOR;
+        goalDifferenceWeight = 1;
+    }
+
+    public EloHelper(Map<String, Team> teams, double k, boolean regressTowardMean) {
+        this(teams, k, regressTowardMean, DEFAULT_REGRESSION_MEAN, DEFAULT_REGRESSION_DIVISOR, 
+                0, 1, 0, null);
     }
 
     public Team getTeam(String name) {
-        return teams.getOrDefault(name, new Team(name));
+        Team t = teams.get(name);
+        return t != null ? t : new Team(name, historyLimit);
+    }
+
+    public void setTeams(Map<String, Team> teams) {
+        this.teams = teams;
+
+        for (Team t : teams.values()) {
+            applyHistoryLimit(t);
+        }
+    }
+
+    /**
+     * Limits how many ratings each team keeps. With a limit of 1 only the current 
+     * ratings are kept, so a replay uses the same memory no matter how many matches it has.
+     * 
+     * @param historyLimit Maximum number of ratings kept per team, 0 to keep all of them.
+     */
+    public void setHistoryLimit(int historyLimit) {
+        this.historyLimit = historyLimit;
+
+        for (Team t : teams.values()) {
+            applyHistoryLimit(t);
+        }
+    }
+
+    private void applyHistoryLimit(Team t) {
+        if (t.getHistoryLimit() != historyLimit) {
+            t.setHistoryLimit(historyLimit);
+        }
     }
 
     public ArrayList<Team> getTeamsSorted(boolean desc) {
@@ -77,6 +140,7 @@ public class EloHelper {
     }
     
     public void setTeam(Team t) {
+        applyHistoryLimit(t);
         teams.put(t.getName(), t);
     }
 
@@ -85,11 +149,164 @@ public class EloHelper {
             updateRatings(m);
         }
     }
-    
+
+    /**
+     * Replays the matches in parallel on the common ForkJoinPool.
+     *
+     * @see #updateRatingsWithMatches(List, int, ForkJoinPool)
+     */
+    public void updateRatingsWithMatches(List<Match> matches, int workers) {
+        updateRatingsWithMatches(matches, workers, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Replays the matches splitting them into groups of teams that never play each other,
+     * like leagues of different countries. Each group only changes its own teams, so the
+     * groups are replayed in parallel, each one in the order of the list, and the ratings
+     * are exactly the same as {@link #updateRatingsWithMatches(ArrayList)}.
+     * The prediction metrics are added up per worker, so their sums can differ in the last digits.
+     * Groups are spread between the workers by number of matches, 
+     * so a single group with every team is replayed by one worker.
+     *
+     * @param matches The matches, in the order they should be replayed.
+     * @param workers Number of tasks the groups are split into.
+     * @param pool Pool running the workers.
+     */
+    public void updateRatingsWithMatches(List<Match> matches, int workers, ForkJoinPool pool) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("There must be at least one worker.");
+        }
+
+        TeamIndex index = new TeamIndex();
+        int[] home = new int[matches.size()];
+        int[] away = new int[matches.size()];
+
+        for (int i = 0; i < home.length; i++) {
+            Match m = matches.get(i);
+            home[i] = index.intern(m.getHome());
+            away[i] = index.intern(m.getAway());
+        }
+
+        int[] parent = new int[index.size()];
+        for (int id = 0; id < parent.length; id++) {
+            parent[id] = id;
+        }
+        for (int i = 0; i < home.length; i++) {
+            union(parent, home[i], away[i]);
+        }
+
+        int[][] replays = getReplays(parent, home, workers);
+
+        //Teams are created before the replay and added after it in the order they first play, 
+        //as the sequential replay does, so the map ends up the same
+        Team[] replayed = new Team[index.size()];
+        for (int id = 0; id < replayed.length; id++) {
+            replayed[id] = getTeam(index.getName(id));
+        }
+
+        List<ForkJoinTask<PredictionMetrics>> tasks = new ArrayList<>();
+        for (int[] replay : replays) {
+            if (replay.length == 0) {
+                continue;
+            }
+
+            tasks.add(pool.submit(() -> {
+                PredictionMetrics scored = metrics != null ? new PredictionMetrics() : null;
+
+                for (int i : replay) {
+                    Match m = matches.get(i);
+                    double expected = updateRatings(m, replayed[home[i]], replayed[away[i]]);
+                    addPrediction(scored, m, null, scored != null ? Dates.getYear(m.getDate()) : 0, expected);
+                }
+
+                return scored;
+            }));
+        }
+
+        for (ForkJoinTask<PredictionMetrics> task : tasks) {
+            PredictionMetrics scored = task.join();
+
+            if (scored != null) {
+                metrics.merge(scored);
+            }
+        }
+
+        for (Team t : replayed) {
+            teams.putIfAbsent(t.getName(), t);
+        }
+    }
+
+    private static int find(int[] parent, int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+
+    /**
+     * Gives each group of teams to a worker, the biggest groups first, 
+     * each one to the worker with the fewest matches so far.
+     *
+     * @return The indexes of the matches each worker replays, in order.
+     */
+    private static int[][] getReplays(int[] parent, int[] home, int workers) {
+        int teams = parent.length;
+        int[] matches = new int[teams];
+        for (int h : home) {
+            matches[find(parent, h)]++;
+        }
+
+        List<Integer> roots = new ArrayList<>();
+        for (int id = 0; id < teams; id++) {
+            if (find(parent, id) == id) {
+                roots.add(id);
+            }
+        }
+        roots.sort((a, b) -> matches[a] != matches[b] ? Integer.compare(matches[b], matches[a]) 
+                : Integer.compare(a, b));
+
+        int[] worker = new int[teams];
+        int[] load = new int[workers];
+        for (int root : roots) {
+            int lightest = 0;
+            for (int w = 1; w < workers; w++) {
+                if (load[w] < load[lightest]) {
+                    lightest = w;
+                }
+            }
+
+            worker[root] = lightest;
+            load[lightest] += matches[root];
+        }
+
+        int[][] replays = new int[workers][];
+        for (int w = 0; w < workers; w++) {
+            replays[w] = new int[load[w]];
+        }
+
+        int[] next = new int[workers];
+        for (int i = 0; i < home.length; i++) {
+            int w = worker[find(parent, home[i])];
+            replays[w][next[w]++] = i;
+        }
+
+        return replays;
+    }
+
     public void updateRatings(ArrayList<League> leagues) {
         for (League l : leagues) {
             for (Match m : l.getMatches()) {
-                updateRatings(m);
+                updateRatings(m, l.getName(), l.getYear());
             }
 
             if (regressTowardMean) {
@@ -98,27 +315,143 @@ public class EloHelper {
         }
     }
     
+    /**
+     * Replays the matches of all the leagues sorted by date, like 
+     * {@link #updateRatingsWithMatches(ArrayList)} with all of them, 
+     * but scoring the predictions by the competition and season of each league.
+     * When regressing toward the mean, the teams of each league are regressed 
+     * right after its last match.
+     *
+     * @param leagues The leagues.
+     */
+    public void updateRatingsInDateOrder(List<League> leagues) {
+        ArrayList<Match> matches = new ArrayList<>();
+        boolean byLeague = metrics != null || regressTowardMean;
+        Map<Match, League> competitions = byLeague ? new IdentityHashMap<>() : null;
+        Map<League, Integer> remaining = new IdentityHashMap<>();
+
+        for (League l : leagues) {
+            for (Match m : l.getMatches()) {
+                matches.add(m);
+
+                if (competitions != null) {
+                    competitions.put(m, l);
+                }
+            }
+
+            remaining.put(l, l.getMatches().size());
+        }
+
+        Collections.sort(matches);
+
+        for (Match m : matches) {
+            if (competitions == null) {
+                updateRatings(m);
+                continue;
+            }
+
+            League l = competitions.get(m);
+            updateRatings(m, l.getName(), l.getYear());
+
+            if (regressTowardMean && remaining.merge(l, -1, Integer::sum) == 0) {
+                regressTowardsTheMean(l);
+            }
+        }
+    }
+    
     public void updateRatings(Match m) {
+        updateRatings(m, null, metrics != null ? Dates.getYear(m.getDate()) : 0);
+    }
+
+    /**
+     * Replays all the matches of a store, in order, reading them from the mapped file.
+     * The ratings are the same as replaying the matches it was written with.
+     *
+     * @param matches The stored matches.
+     */
+    public void updateRatings(MatchStore matches) {
+        Team[] stored = new Team[matches.getTeamCount()];
+
+        for (int i = 0; i < matches.size(); i++) {
+            Team home = getStoredTeam(matches, stored, matches.getHome(i));
+            Team away = getStoredTeam(matches, stored, matches.getAway(i));
+            int homeGoals = matches.getHomeGoals(i);
+            int awayGoals = matches.getAwayGoals(i);
+            long date = matches.getDate(i);
+
+            double expected = updateRatings(home, away, homeGoals, awayGoals, date, 
+                    matches.getCustomK(i));
+
+            if (metrics != null) {
+                metrics.add(null, Dates.getYear(date), expected, 
+                        getMatchResultValue(homeGoals, awayGoals));
+            }
+        }
+    }
+
+    private Team getStoredTeam(MatchStore matches, Team[] stored, int id) {
+        if (stored[id] == null) {
+            stored[id] = getTeam(matches.getTeamName(id));
+            teams.putIfAbsent(stored[id].getName(), stored[id]);
+        }
+        return stored[id];
+    }
+
+    private void updateRatings(Match m, String competition, int season) {
         Team home = getTeam(m.getHome());
         Team away = getTeam(m.getAway());
         
-        double diffHome = getPointsDifference(m, true);
-        double diffAway = getPointsDifference(m, false);
+        double expected = updateRatings(m, home, away);
+        addPrediction(metrics, m, competition, season, expected);
+        
+        teams.putIfAbsent(home.getName(), home);
+        teams.putIfAbsent(away.getName(), away);
+    }
+
+    private void addPrediction(PredictionMetrics metrics, Match m, String competition, int season,
+            double expected) {
+        if (metrics != null) {
+            metrics.add(competition, season, expected, getMatchResultValue(m, true));
+        }
+    }
+
+    /**
+     * Updates the ratings of the two teams of a match, without adding them to the teams.
+     * It only changes the two teams, so matches with no team in common can be 
+     * replayed at the same time.
+     * 
+     * @return The expected result of the home team before the match.
+     */
+    private double updateRatings(Match m, Team home, Team away) {
+        return updateRatings(home, away, m.getHomeGoals(), m.getAwayGoals(), m.getDate(), 
+                m.getCustomK());
+    }
+
+    private double updateRatings(Team home, Team away, int homeGoals, int awayGoals, long date, 
+            double customK) {
+        double ratingHome = home.getCurrentRating();
+        double ratingAway = away.getCurrentRating();
         
-        double newRatingHome = getNewRating(diffHome, home);
-        double newRatingAway = getNewRating(diffAway, away);
+        double playingHome = ratingHome + homeAdvantage;
         
-        final Date date = m.getDate();
+        double k = customK != 0 ? customK : this.k;
+        double gIndex = getGoalDifferenceIndex(homeGoals, awayGoals, goalDifferenceWeight);
+        double resultHome = getMatchResultValue(homeGoals, awayGoals);
         
-        home.addRating(new EloRating(date, newRatingHome));
-        away.addRating(new EloRating(date, newRatingAway));
+        double expected = getWinningExpectancy(playingHome, ratingAway);
+        double diffHome = k * gIndex 
+                * (resultHome - expected);
+        double diffAway = k * gIndex 
+                * ((1.0 - resultHome) - getWinningExpectancy(ratingAway, playingHome));
         
-        setTeam(home);
-        setTeam(away);
+        home.addRating(date, ratingHome + diffHome);
+        away.addRating(date, ratingAway + diffAway);
+
+        return expected;
     }
 
     public double getNewRating(double pointDiff, Team t) {
-        return t.getLastRating().getRating() + pointDiff;
+        return t.getCurrentRating() + pointDiff;
     }
     
     public double getPointsDifference(Match m, boolean home) {
@@ -127,7 +460,9 @@ public class EloHelper {
         
         double gIndex = getGoalDifferenceIndex(m);
         double result = getMatchResultValue(m, home);
-        double we = getWinningExpectancy(a, b);
+        double ratingA = a.getCurrentRating() + (home ? homeAdvantage : 0);
+        double ratingB = b.getCurrentRating() + (home ? 0 : homeAdvantage);
+        double we = getWinningExpectancy(ratingA, ratingB);
         
         double k = m.hasCustomK() ? m.getCustomK() : this.k;
         
@@ -144,8 +479,30 @@ public class EloHelper {
         }
     }
     
+    /**
+     * @return The result of the home team: 1 for a win, 0.5 for a draw and 0 for a loss.
+     */
+    private static double getMatchResultValue(int homeGoals, int awayGoals) {
+        if (homeGoals == awayGoals) {
+            return 0.5;
+        }
+        return homeGoals > awayGoals ? 1.0 : 0.0;
+    }
+    
     private double getGoalDifferenceIndex(Match m) {
-        int diff = Math.abs(m.getHomeGoals() - m.getAwayGoals());
+        return getGoalDifferenceIndex(m.getHomeGoals(), m.getAwayGoals(), goalDifferenceWeight);
+    }
+
+    /**
+     * @param weight 1 gives the index as is, 0 ignores the goal difference.
+     * @return The goal difference index, moved toward 1 by the weight.
+     */
+    public static double getGoalDifferenceIndex(int homeGoals, int awayGoals, double weight) {
+        return 1.00 + weight * (getGoalDifferenceIndex(homeGoals, awayGoals) - 1.00);
+    }
+    
+    public static double getGoalDifferenceIndex(int homeGoals, int awayGoals) {
+        int diff = Math.abs(homeGoals - awayGoals);
         
         if (diff == 0 || diff == 1) {
             return 1.00;
@@ -156,8 +513,12 @@ public class EloHelper {
         return (11.00 + ((double) diff)) / 8.00;
     }
     
+    /**
+     * @return The % of the home team winning, with the home advantage.
+     */
     public double getWinningProbability(Match m) {
-        return getWinningProbability(getTeam(m.getHome()), getTeam(m.getAway()));
+        return 100.00 * getWinningExpectancy(getTeam(m.getHome()).getCurrentRating() + homeAdvantage, 
+                getTeam(m.getAway()).getCurrentRating());
     }
     
     public double getWinningProbability(Team a, Team b) {
@@ -165,12 +526,12 @@ public class EloHelper {
     }
     
     private double getWinningExpectancy(Team a, Team b) {
-        return 1.00 / 
-                (Math.pow(10.00, (-getRatingDifference(a, b) / 400.00)) + 1.00);
+        return getWinningExpectancy(a.getCurrentRating(), b.getCurrentRating());
     }
     
-    private double getRatingDifference(Team a, Team b) {
-        return a.getLastRating().getRating() - b.getLastRating().getRating();
+    static double getWinningExpectancy(double ratingA, double ratingB) {
+        return 1.00 / 
+                (Math.pow(10.00, (-(ratingA - ratingB) / 400.00)) + 1.00);
     }
     
     private double getMean() {
@@ -178,7 +539,7 @@ public class EloHelper {
         long total = 0;
         
         for (Team t : ts) {
-            total += t.getLastRating().getRating();
+            total += t.getCurrentRating();
         }
 
         return total / ((double) ts.size());
@@ -190,11 +551,30 @@ public class EloHelper {
         }
     }
     
+    //Regresses the teams that played the league, each one once
+    private void regressTowardsTheMean(League l) {
+        Set<String> names = new HashSet<>();
+
+        for (Match m : l.getMatches()) {
+            names.add(m.getHome());
+            names.add(m.getAway());
+        }
+
+        for (String name : names) {
+            regressTowardsTheMean(getTeam(name));
+        }
+    }
+    
     private void regressTowardsTheMean(Team t) {
         EloRating er = t.getLastRating();
-        double reduce = ((er.getRating() - 1505.00) / 3.00);
-        t.addRating(new EloRating(Util.addOneDayToDate(er.getDate()), er.getRating() - reduce));
+        t.addRating(Dates.addOneDay(er.getDate()), 
+                getRegressedRating(er.getRating(), regressionMean, regressionDivisor));
         setTeam(t);
     }
     
+    static double getRegressedRating(double rating, double mean, double divisor) {
+        double reduce = ((rating - mean) / divisor);
+        return rating - reduce;
+    }
+    
 }
@@ -0,0 +1,231 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.MatchTable;
+import victor.santiago.soccer.elo.ratings.model.Team;
+
+/**
+ * Keeps the ratings up to date as new matches arrive, without replaying the whole history.
+ *
+ * Matches newer than every match seen so far are just applied. A match from an earlier date
+ * is inserted in its place, and the ratings are restored from the last checkpoint
+ * before it and replayed from there. A checkpoint is kept every few matches.
+ *
+ * A {@link Listener} can follow the new rating of each team after every match, 
+ * e.g. to keep the rating history of the teams.
+ *
+ * @author Victor Santiago
+ */
+public class IncrementalRatings {
+
+    private static final int DEFAULT_CHECKPOINT_INTERVAL = 1024;
+
+    private final RatingEngine engine;
+    private final MatchTable matches;
+    private final int checkpointInterval;
+    private final List<RatingEngine.Checkpoint> checkpoints;
+
+    private int replayed;
+    private Listener listener;
+
+    public IncrementalRatings(RatingEngine engine) {
+        this(engine, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * @param engine The engine to update, with the ratings before any of the new matches.
+     * @param checkpointInterval Number of matches between checkpoints.
+     */
+    public IncrementalRatings(RatingEngine engine, int checkpointInterval) {
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("The checkpoint interval must be positive.");
+        }
+
+        this.engine = engine;
+        this.matches = new MatchTable();
+        this.checkpointInterval = checkpointInterval;
+        this.checkpoints = new ArrayList<>();
+    }
+
+    /**
+     * @param m The new match.
+     * @return False if the match arrived out of order, meaning part of the history was replayed.
+     */
+    public boolean addMatch(Match m) {
+        int position = insert(m);
+
+        if (position == matches.size() - 1) {
+            apply(position, true);
+            return true;
+        }
+
+        replayFrom(position);
+        return false;
+    }
+
+    /**
+     * Adds many matches at once, replaying the history (if needed) only once.
+     *
+     * @param newMatches The new matches, in any order.
+     * @return False if any of the matches arrived out of order.
+     */
+    public boolean addMatches(List<Match> newMatches) {
+        List<Match> sorted = new ArrayList<>(newMatches);
+        Collections.sort(sorted);
+
+        int earliest = Integer.MAX_VALUE;
+        for (Match m : sorted) {
+            int position = insert(m);
+
+            if (position == matches.size() - 1 && earliest == Integer.MAX_VALUE) {
+                apply(position, true);
+            } else {
+                earliest = Math.min(earliest, position);
+            }
+        }
+
+        if (earliest == Integer.MAX_VALUE) {
+            return true;
+        }
+
+        replayFrom(earliest);
+        return false;
+    }
+
+    /**
+     * @param m A match.
+     * @return True if the match can be added without replaying any other match.
+     */
+    public boolean isInOrder(Match m) {
+        return matches.size() == 0 || m.getDate() >= matches.getDate(matches.size() - 1);
+    }
+
+    private int insert(Match m) {
+        long date = m.getDate();
+        int position = matches.getPositionAfter(date);
+
+        matches.insert(position, engine.intern(m.getHome()), engine.intern(m.getAway()),
+                m.getHomeGoals(), m.getAwayGoals(), date, m.getCustomK());
+
+        return position;
+    }
+
+    private void apply(int position, boolean notify) {
+        if (position % checkpointInterval == 0) {
+            checkpoints.add(engine.getCheckpoint());
+        }
+
+        engine.replay(matches, position, position + 1);
+
+        if (notify && listener != null) {
+            int home = matches.getHome(position);
+            int away = matches.getAway(position);
+            long date = matches.getDate(position);
+
+            listener.rated(home, date, engine.getRating(home));
+            listener.rated(away, date, engine.getRating(away));
+        }
+    }
+
+    //Only the matches from the position on change, the ones between the checkpoint
+    //and the position are replayed as they were
+    private void replayFrom(int position) {
+        int checkpoint = position / checkpointInterval;
+
+        engine.restore(checkpoints.get(checkpoint));
+        checkpoints.subList(checkpoint, checkpoints.size()).clear();
+
+        if (listener != null) {
+            listener.replaying(matches.getDate(position));
+        }
+
+        for (int i = checkpoint * checkpointInterval; i < matches.size(); i++) {
+            apply(i, i >= position);
+            replayed++;
+        }
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public RatingEngine getEngine() {
+        return engine;
+    }
+
+    public double getRating(String team) {
+        return engine.getRating(team);
+    }
+
+    public Map<String, Team> getTeams() {
+        return engine.getTeams();
+    }
+
+    /**
+     * @return Number of matches in the history.
+     */
+    public int getMatchCount() {
+        return matches.size();
+    }
+
+    /**
+     * @return Number of matches replayed because of matches arriving out of order.
+     */
+    public int getReplayedMatches() {
+        return replayed;
+    }
+
+    /**
+     * Follows the ratings as the matches are applied.
+     */
+    public interface Listener {
+
+        /**
+         * Part of the history is about to be replayed: the ratings after the date are no longer
+         * valid, they are given again as the matches are replayed. The ones on that same instant 
+         * still are, since matches on the same date are kept in the order they arrived.
+         *
+         * @param date Date of the first match replayed, in milliseconds since the epoch.
+         */
+        void replaying(long date);
+
+        /**
+         * @param team Id of the team in the engine.
+         * @param date Date of the match, in milliseconds since the epoch.
+         * @param rating Rating of the team after the match.
+         */
+        void rated(int team, long date, double rating);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import victor.santiago.soccer.elo.ratings.model.Match;
+
+/**
+ * Reads the matches of a JSON file of leagues as they are parsed, 
+ * without loading the whole file or building all the leagues in memory.
+ *
+ * @author Victor Santiago
+ */
+public class LeagueJsonReader implements Closeable {
+
+    private final Gson gson;
+    private final JsonReader reader;
+
+    public LeagueJsonReader(Reader reader, Gson gson) {
+        this.gson = gson;
+        this.reader = new JsonReader(reader);
+    }
+
+    public LeagueJsonReader(String path, Gson gson) throws IOException {
+        this(Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8), gson);
+    }
+
+    /**
+     * Reads all the matches of all the leagues, in the order they appear in the file,
+     * handing them off in batches. The same list is reused for every batch, 
+     * so it's cleared after the handler returns.
+     *
+     * @param bufferSize Maximum number of matches kept in memory at once.
+     * @param handler Receives each batch of matches.
+     * @throws IOException If the file can't be read or isn't a list of leagues.
+     */
+    public void readMatches(int bufferSize, Consumer<List<Match>> handler) throws IOException {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer must hold at least one match.");
+        }
+
+        List<Match> buffer = new ArrayList<>(bufferSize);
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            readLeague(buffer, bufferSize, handler);
+        }
+        reader.endArray();
+
+        if (!buffer.isEmpty()) {
+            handler.accept(buffer);
+            buffer.clear();
+        }
+    }
+
+    private void readLeague(List<Match> buffer, int bufferSize, Consumer<List<Match>> handler) 
+            throws IOException {
+        reader.beginObject();
+
+        while (reader.hasNext()) {
+            if (!"matches".equals(reader.nextName()) || reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                buffer.add(gson.<Match>fromJson(reader, Match.class));
+
+                if (buffer.size() == bufferSize) {
+                    handler.accept(buffer);
+                    buffer.clear();
+                }
+            }
+            reader.endArray();
+        }
+
+        reader.endObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
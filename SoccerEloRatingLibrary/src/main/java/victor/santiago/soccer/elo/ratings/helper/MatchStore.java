@@ -0,0 +1,254 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.TeamIndex;
+
+/**
+ * A history of matches stored in a binary file, read in place through a memory-mapped buffer.
+ *
+ * The file has a header (magic number and version), the team names and then one fixed-width
+ * record per match: home and away team ids, goals of each team, date (milliseconds since 
+ * the epoch) and custom K. Opening it reads the team names and checks the team ids, every match
+ * is read straight from the mapped file when it's used, so there are no Match objects or JSON parsing.
+ *
+ * @author Victor Santiago
+ */
+public final class MatchStore {
+
+    private static final int MAGIC = 0x454C4F4D;
+    private static final int VERSION = 1;
+
+    private static final int HOME = 0;
+    private static final int AWAY = 4;
+    private static final int HOME_GOALS = 8;
+    private static final int AWAY_GOALS = 10;
+    private static final int DATE = 12;
+    private static final int CUSTOM_K = 20;
+    private static final int RECORD_SIZE = 28;
+
+    private final ByteBuffer records;
+    private final String[] names;
+    private final int size;
+
+    private MatchStore(ByteBuffer records, String[] names, int size) {
+        this.records = records;
+        this.names = names;
+        this.size = size;
+    }
+
+    /**
+     * Writes the matches to a file, in the same order.
+     *
+     * @param matches The matches, in the order they should be replayed.
+     * @param path The file.
+     * @throws IOException If the file can't be written.
+     */
+    public static void write(List<Match> matches, String path) throws IOException {
+        TeamIndex index = new TeamIndex();
+        for (Match m : matches) {
+            index.intern(m.getHome());
+            index.intern(m.getAway());
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(Paths.get(path))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(index.size());
+
+            for (String team : index.getNames()) {
+                byte[] name = team.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+
+            out.writeInt(matches.size());
+
+            for (Match m : matches) {
+                out.writeInt(index.getId(m.getHome()));
+                out.writeInt(index.getId(m.getAway()));
+                out.writeShort(getGoals(m.getHomeGoals()));
+                out.writeShort(getGoals(m.getAwayGoals()));
+                out.writeLong(m.getDate());
+                out.writeDouble(m.getCustomK());
+            }
+        }
+    }
+
+    private static int getGoals(int goals) {
+        //-1 flags a match not played yet
+        if (goals < -1 || goals > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Goals out of range: " + goals);
+        }
+        return goals;
+    }
+
+    /**
+     * Maps a file written by {@link #write(List, String)}. 
+     * The file is kept mapped until the store is garbage collected.
+     *
+     * @param path The file.
+     * @return The store.
+     * @throws IOException If the file can't be read or isn't a match store.
+     */
+    public static MatchStore open(String path) throws IOException {
+        Path file = Paths.get(path);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Match store too large to be mapped: " + path);
+            }
+
+            return open(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path);
+        }
+    }
+
+    private static MatchStore open(ByteBuffer buffer, String path) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a match store: " + path);
+        }
+
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported match store version " + version + ": " + path);
+        }
+
+        //Each team has at least the length of its name, and the number of matches comes after them
+        String[] names = new String[getCount(buffer, 4, path)];
+        for (int i = 0; i < names.length; i++) {
+            byte[] name = new byte[getCount(buffer, 1, path)];
+            buffer.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        if (buffer.remaining() < 4) {
+            throw new IOException("Truncated match store: " + path);
+        }
+
+        int size = buffer.getInt();
+        if (buffer.remaining() != (long) size * RECORD_SIZE) {
+            throw new IOException("Truncated match store: " + path);
+        }
+
+        ByteBuffer records = buffer.slice();
+        for (int i = 0; i < size; i++) {
+            if (!isTeam(records.getInt(i * RECORD_SIZE + HOME), names) 
+                    || !isTeam(records.getInt(i * RECORD_SIZE + AWAY), names)) {
+                throw new IOException("Corrupt match store, unknown team in match " + i + ": " + path);
+            }
+        }
+
+        return new MatchStore(records, names, size);
+    }
+
+    private static boolean isTeam(int id, String[] names) {
+        return id >= 0 && id < names.length;
+    }
+
+    /**
+     * Reads a count, checking there are enough bytes left for that many items.
+     */
+    private static int getCount(ByteBuffer buffer, int bytesEach, String path) throws IOException {
+        if (buffer.remaining() < 4) {
+            throw new IOException("Truncated match store: " + path);
+        }
+
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * bytesEach > buffer.remaining()) {
+            throw new IOException("Truncated match store: " + path);
+        }
+
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getTeamCount() {
+        return names.length;
+    }
+
+    /**
+     * @param id The id of a team in this store.
+     * @return The name of the team.
+     */
+    public String getTeamName(int id) {
+        return names[id];
+    }
+
+    public int getHome(int i) {
+        return records.getInt(i * RECORD_SIZE + HOME);
+    }
+
+    public int getAway(int i) {
+        return records.getInt(i * RECORD_SIZE + AWAY);
+    }
+
+    /**
+     * @param i The match position.
+     * @return The goals of the home team, or -1 if the match wasn't played yet.
+     */
+    public int getHomeGoals(int i) {
+        return records.getShort(i * RECORD_SIZE + HOME_GOALS);
+    }
+
+    /**
+     * @param i The match position.
+     * @return The goals of the away team, or -1 if the match wasn't played yet.
+     */
+    public int getAwayGoals(int i) {
+        return records.getShort(i * RECORD_SIZE + AWAY_GOALS);
+    }
+
+    /**
+     * @param i The match position.
+     * @return The date of the match, in milliseconds since the epoch.
+     */
+    public long getDate(int i) {
+        return records.getLong(i * RECORD_SIZE + DATE);
+    }
+
+    /**
+     * @param i The match position.
+     * @return The K of the match, or 0 if it uses the default one.
+     */
+    public double getCustomK(int i) {
+        return records.getDouble(i * RECORD_SIZE + CUSTOM_K);
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * How well the ratings predicted the matches of a replay, per competition and season.
+ *
+ * {@link EloHelper} adds the expected result of the home team before each match, so the
+ * metrics come for free with the replay. Only sums are kept, never the matches.
+ * Matches replayed without a league have no competition (null) and count for the year 
+ * of their date.
+ *
+ * @author Victor Santiago
+ */
+public class PredictionMetrics {
+
+    /**
+     * Number of calibration buckets, each one 10% of expected result wide.
+     */
+    public static final int BUCKETS = 10;
+
+    private final Map<String, TreeMap<Integer, Scores>> competitions = new LinkedHashMap<>();
+
+    /**
+     * @param competition The competition, or null.
+     * @param season The season of the competition.
+     * @param expected Expected result of the home team, between 0 and 1.
+     * @param result Real result of the home team: 1, 0.5 or 0.
+     */
+    public void add(String competition, int season, double expected, double result) {
+        competitions.computeIfAbsent(competition, c -> new TreeMap<>())
+                .computeIfAbsent(season, s -> new Scores())
+                .add(expected, result);
+    }
+
+    /**
+     * Adds the metrics of another replay, e.g. of a different worker.
+     */
+    public void merge(PredictionMetrics other) {
+        other.competitions.forEach((competition, seasons) -> seasons.forEach((season, scores) -> 
+                competitions.computeIfAbsent(competition, c -> new TreeMap<>())
+                        .computeIfAbsent(season, s -> new Scores())
+                        .merge(scores)));
+    }
+
+    /**
+     * @return The competitions, in the order they were first replayed.
+     */
+    public List<String> getCompetitions() {
+        return new ArrayList<>(competitions.keySet());
+    }
+
+    /**
+     * @return The seasons of a competition, in order.
+     */
+    public List<Integer> getSeasons(String competition) {
+        TreeMap<Integer, Scores> seasons = competitions.get(competition);
+        return seasons == null ? Collections.emptyList() : new ArrayList<>(seasons.keySet());
+    }
+
+    /**
+     * @return The metrics of a season of a competition, empty if it wasn't replayed.
+     */
+    public Scores getScores(String competition, int season) {
+        Scores scores = new Scores();
+        TreeMap<Integer, Scores> seasons = competitions.get(competition);
+
+        if (seasons != null && seasons.containsKey(season)) {
+            scores.merge(seasons.get(season));
+        }
+
+        return scores;
+    }
+
+    /**
+     * @return The metrics of every season of a competition.
+     */
+    public Scores getScores(String competition) {
+        Scores scores = new Scores();
+        competitions.getOrDefault(competition, new TreeMap<>()).values().forEach(scores::merge);
+
+        return scores;
+    }
+
+    /**
+     * @return The metrics of every match.
+     */
+    public Scores getScores() {
+        Scores scores = new Scores();
+        competitions.values().forEach(seasons -> seasons.values().forEach(scores::merge));
+
+        return scores;
+    }
+
+    /**
+     * Running sums of the predictions of a group of matches.
+     */
+    public static class Scores {
+
+        private int count;
+        private double brier;
+        private double logLoss;
+        private int decided;
+        private int correct;
+        private final int[] bucketCounts = new int[BUCKETS];
+        private final double[] bucketExpected = new double[BUCKETS];
+        private final double[] bucketResults = new double[BUCKETS];
+
+        void add(double expected, double result) {
+            count++;
+            brier += Calibrator.Score.BRIER.of(expected, result);
+            logLoss += Calibrator.Score.LOG_LOSS.of(expected, result);
+
+            if (result != 0.5) {
+                decided++;
+                if ((expected > 0.5 && result == 1.0) || (expected < 0.5 && result == 0.0)) {
+                    correct++;
+                }
+            }
+
+            int bucket = getBucket(expected);
+            bucketCounts[bucket]++;
+            bucketExpected[bucket] += expected;
+            bucketResults[bucket] += result;
+        }
+
+        void merge(Scores other) {
+            count += other.count;
+            brier += other.brier;
+            logLoss += other.logLoss;
+            decided += other.decided;
+            correct += other.correct;
+
+            for (int i = 0; i < BUCKETS; i++) {
+                bucketCounts[i] += other.bucketCounts[i];
+                bucketExpected[i] += other.bucketExpected[i];
+                bucketResults[i] += other.bucketResults[i];
+            }
+        }
+
+        private static int getBucket(double expected) {
+            return Math.max(0, Math.min(BUCKETS - 1, (int) (expected * BUCKETS)));
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return The mean Brier score, lower is better.
+         */
+        public double getBrierScore() {
+            return count == 0 ? 0 : brier / count;
+        }
+
+        /**
+         * @return The mean log-loss, lower is better.
+         */
+        public double getLogLoss() {
+            return count == 0 ? 0 : logLoss / count;
+        }
+
+        /**
+         * @return The % of matches that weren't draws won by the favourite.
+         */
+        public double getAccuracy() {
+            return decided == 0 ? 0 : 100.00 * correct / decided;
+        }
+
+        /**
+         * @param bucket From 0 (expected result below 0.1) to BUCKETS - 1 (0.9 or more).
+         * @return Number of matches in the bucket.
+         */
+        public int getBucketCount(int bucket) {
+            return bucketCounts[bucket];
+        }
+
+        /**
+         * @return The mean expected result of the matches in the bucket.
+         */
+        public double getBucketExpected(int bucket) {
+            return bucketCounts[bucket] == 0 ? 0 : bucketExpected[bucket] / bucketCounts[bucket];
+        }
+
+        /**
+         * @return The mean real result of the matches in the bucket, which is close to the 
+         *         expected one if the ratings are well calibrated.
+         */
+        public double getBucketResult(int bucket) {
+            return bucketCounts[bucket] == 0 ? 0 : bucketResults[bucket] / bucketCounts[bucket];
+        }
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import victor.santiago.soccer.elo.ratings.model.EloRating;
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.MatchTable;
+import victor.santiago.soccer.elo.ratings.model.Team;
+import victor.santiago.soccer.elo.ratings.model.TeamIndex;
+
+/**
+ * Elo calculator that works over team ids instead of names.
+ *
+ * Team names are interned once, when the matches are compiled into a {@link MatchTable},
+ * and the current rating of each team is kept in a double[]. Replaying the table
+ * gives exactly the same ratings as {@link EloHelper#updateRatingsWithMatches},
+ * but with no map lookups or allocations per match. Only the current ratings are kept,
+ * not the history of each team.
+ *
+ * @author Victor Santiago
+ */
+public class RatingEngine {
+
+    private static final double INITIAL_RATING = EloRating.INITIAL_RATING;
+    private static final long NOT_RATED = Long.MIN_VALUE;
+
+    private final TeamIndex index;
+    private double k;
+    private double regressionMean = EloHelper.DEFAULT_REGRESSION_MEAN;
+    private double regressionDivisor = EloHelper.DEFAULT_REGRESSION_DIVISOR;
+    private double homeAdvantage;
+    private double goalDifferenceWeight = 1;
+    private double[] ratings;
+    private long[] dates;
+
+    public RatingEngine() {
+        this(20);
+    }
+
+    public RatingEngine(double k) {
+        this.k = k;
+        this.index = new TeamIndex();
+        this.ratings = new double[0];
+        this.dates = new long[0];
+    }
+
+    /**
+     * Creates an engine starting from the current ratings and settings of a helper.
+     *
+     * @param helper The helper to copy the ratings from.
+     */
+    public RatingEngine(EloHelper helper) {
+        this(helper.getK());
+        this.regressionMean = helper.getRegressionMean();
+        this.regressionDivisor = helper.getRegressionDivisor();
+        this.homeAdvantage = helper.getHomeAdvantage();
+        this.goalDifferenceWeight = helper.getGoalDifferenceWeight();
+
+        for (Team t : helper.getTeams().values()) {
+            EloRating last = t.getLastRating();
+            int id = intern(t.getName());
+
+            ratings[id] = last.getRating();
+            dates[id] = last.getDate();
+        }
+    }
+
+    public TeamIndex getIndex() {
+        return index;
+    }
+
+    public double getK() {
+        return k;
+    }
+
+    public void setK(double k) {
+        this.k = k;
+    }
+
+    public double getRegressionMean() {
+        return regressionMean;
+    }
+
+    public void setRegressionMean(double regressionMean) {
+        this.regressionMean = regressionMean;
+    }
+
+    public double getRegressionDivisor() {
+        return regressionDivisor;
+    }
+
+    /**
+     * @param regressionDivisor What the distance to the mean is divided by when regressing.
+     */
+    public void setRegressionDivisor(double regressionDivisor) {
+        this.regressionDivisor = regressionDivisor;
+    }
+
+    public double getHomeAdvantage() {
+        return homeAdvantage;
+    }
+
+    /**
+     * @param homeAdvantage Rating points added to the home team for the expected results.
+     */
+    public void setHomeAdvantage(double homeAdvantage) {
+        this.homeAdvantage = homeAdvantage;
+    }
+
+    public double getGoalDifferenceWeight() {
+        return goalDifferenceWeight;
+    }
+
+    /**
+     * @param goalDifferenceWeight 1 uses the goal difference index as is, 0 ignores it.
+     */
+    public void setGoalDifferenceWeight(double goalDifferenceWeight) {
+        this.goalDifferenceWeight = goalDifferenceWeight;
+    }
+
+    /**
+     * @param name The team name.
+     * @return The id of the team. New teams start with the initial rating.
+     */
+    public int intern(String name) {
+        int id = index.intern(name);
+        ensureCapacity();
+
+        return id;
+    }
+
+    /**
+     * Interns the teams of the matches and stores them as a table that can be replayed.
+     *
+     * @param matches The matches, in the order they should be replayed.
+     * @return The compiled matches.
+     */
+    public MatchTable compile(List<Match> matches) {
+        MatchTable table = MatchTable.compile(matches, index);
+        ensureCapacity();
+
+        return table;
+    }
+
+    private void ensureCapacity() {
+        if (index.size() <= ratings.length) {
+            return;
+        }
+
+        int capacity = Math.max(index.size(), ratings.length * 2);
+        int from = ratings.length;
+
+        ratings = Arrays.copyOf(ratings, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        Arrays.fill(ratings, from, capacity, INITIAL_RATING);
+        Arrays.fill(dates, from, capacity, NOT_RATED);
+    }
+
+    public void replay(MatchTable matches) {
+        replay(matches, 0, matches.size());
+    }
+
+    /**
+     * Updates the ratings with the matches in [from, to) of the table.
+     * The table must have been compiled with this engine.
+     *
+     * @param matches The compiled matches.
+     * @param from First match to replay.
+     * @param to Match to stop at (exclusive).
+     */
+    public void replay(MatchTable matches, int from, int to) {
+        for (int i = from; i < to; i++) {
+            update(matches.getHome(i), matches.getAway(i), matches.getHomeGoals(i),
+                    matches.getAwayGoals(i), matches.getDate(i), matches.getCustomK(i));
+        }
+    }
+
+    /**
+     * Updates the ratings with all the matches of a store, reading them from the mapped file.
+     * The teams of the store are interned once, not per match.
+     *
+     * @param matches The stored matches.
+     */
+    public void replay(MatchStore matches) {
+        int[] ids = new int[matches.getTeamCount()];
+        for (int id = 0; id < ids.length; id++) {
+            ids[id] = intern(matches.getTeamName(id));
+        }
+
+        for (int i = 0; i < matches.size(); i++) {
+            update(ids[matches.getHome(i)], ids[matches.getAway(i)], matches.getHomeGoals(i),
+                    matches.getAwayGoals(i), matches.getDate(i), matches.getCustomK(i));
+        }
+    }
+
+    /**
+     * Updates the ratings of two teams with the result of a match between them.
+     *
+     * @param home Id of the home team.
+     * @param away Id of the away team.
+     * @param homeGoals Goals scored by the home team.
+     * @param awayGoals Goals scored by the away team.
+     * @param date Date of the match, in milliseconds since the epoch.
+     * @param customK K of the match, or 0 to use the default one.
+     */
+    public void update(int home, int away, int homeGoals, int awayGoals, long date, double customK) {
+        double ratingHome = ratings[home];
+        double ratingAway = ratings[away];
+        double playingHome = ratingHome + homeAdvantage;
+
+        double k = customK != 0 ? customK : this.k;
+        double gIndex = EloHelper.getGoalDifferenceIndex(homeGoals, awayGoals, goalDifferenceWeight);
+
+        double resultHome;
+        double resultAway;
+        if (homeGoals == awayGoals) {
+            resultHome = 0.5;
+            resultAway = 0.5;
+        } else if (homeGoals > awayGoals) {
+            resultHome = 1.0;
+            resultAway = 0.0;
+        } else {
+            resultHome = 0.0;
+            resultAway = 1.0;
+        }
+
+        ratings[home] = ratingHome + k * gIndex
+                * (resultHome - EloHelper.getWinningExpectancy(playingHome, ratingAway));
+        ratings[away] = ratingAway + k * gIndex
+                * (resultAway - EloHelper.getWinningExpectancy(ratingAway, playingHome));
+        dates[home] = date;
+        dates[away] = date;
+    }
+
+    /**
+     * Regresses every team that already has a rating towards the mean,
+     * the same way {@link EloHelper} does after each league.
+     */
+    public void regressTowardsTheMean() {
+        for (int id = 0; id < index.size(); id++) {
+            if (dates[id] == NOT_RATED) {
+                continue;
+            }
+
+            ratings[id] = EloHelper.getRegressedRating(ratings[id], regressionMean, regressionDivisor);
+            dates[id] = Dates.addOneDay(dates[id]);
+        }
+    }
+
+    /**
+     * Calculates the probability of the home team winning a list of fixtures, 
+     * the same as {@link EloHelper#getWinningProbability(Match)}.
+     *
+     * @param home Ids of the home teams.
+     * @param away Ids of the away teams.
+     * @param probabilities Where the % of the home team winning each fixture is written.
+     */
+    public void getWinningProbabilities(int[] home, int[] away, double[] probabilities) {
+        getWinningProbabilities(home, away, probabilities, WinningExpectancy.EXACT);
+    }
+
+    /**
+     * Calculates the probability of the home team winning a list of fixtures.
+     *
+     * @param home Ids of the home teams.
+     * @param away Ids of the away teams.
+     * @param probabilities Where the % of the home team winning each fixture is written.
+     * @param expectancy How the winning expectancy is calculated.
+     */
+    public void getWinningProbabilities(int[] home, int[] away, double[] probabilities,
+            WinningExpectancy expectancy) {
+        int fixtures = home.length;
+
+        if (away.length != fixtures || probabilities.length < fixtures) {
+            throw new IllegalArgumentException("There must be one away team and probability per home team.");
+        }
+
+        for (int i = 0; i < fixtures; i++) {
+            double playingHome = ratings[home[i]] + homeAdvantage;
+            probabilities[i] = 100.00 * expectancy.of(playingHome - ratings[away[i]]);
+        }
+    }
+
+    /**
+     * Calculates the probability of every team beating every other team at home.
+     *
+     * @param expectancy How the winning expectancy is calculated.
+     * @return A flat n x n matrix, n being the number of teams, where position 
+     * home * n + away has the % of the home team winning.
+     */
+    public double[] getWinningProbabilityMatrix(WinningExpectancy expectancy) {
+        int teams = index.size();
+        double[] matrix = new double[teams * teams];
+
+        for (int home = 0; home < teams; home++) {
+            int row = home * teams;
+            double playingHome = ratings[home] + homeAdvantage;
+
+            for (int away = 0; away < teams; away++) {
+                matrix[row + away] = 100.00 * expectancy.of(playingHome - ratings[away]);
+            }
+        }
+
+        return matrix;
+    }
+
+    /**
+     * @return A copy of the current state of the engine, which can be restored later.
+     */
+    public Checkpoint getCheckpoint() {
+        int teams = index.size();
+        return new Checkpoint(Arrays.copyOf(ratings, teams), Arrays.copyOf(dates, teams));
+    }
+
+    /**
+     * Goes back to the state of a checkpoint of this engine. 
+     * Teams interned after the checkpoint go back to not having a rating.
+     *
+     * @param checkpoint The checkpoint to restore.
+     */
+    public void restore(Checkpoint checkpoint) {
+        int teams = checkpoint.ratings.length;
+
+        System.arraycopy(checkpoint.ratings, 0, ratings, 0, teams);
+        System.arraycopy(checkpoint.dates, 0, dates, 0, teams);
+        Arrays.fill(ratings, teams, ratings.length, INITIAL_RATING);
+        Arrays.fill(dates, teams, dates.length, NOT_RATED);
+    }
+
+    public double getRating(int id) {
+        return ratings[id];
+    }
+
+    /**
+     * @param name The team name.
+     * @return The current rating of the team, or the initial rating if it's unknown.
+     */
+    public double getRating(String name) {
+        int id = index.getId(name);
+        return id < 0 ? INITIAL_RATING : ratings[id];
+    }
+
+    /**
+     * @return The current ratings, indexed by team id.
+     */
+    public double[] getRatings() {
+        return Arrays.copyOf(ratings, index.size());
+    }
+
+    /**
+     * Builds the teams that have a rating, each one with its current rating only.
+     *
+     * @return A map with team name -> Team.
+     */
+    public Map<String, Team> getTeams() {
+        Map<String, Team> teams = new HashMap<>();
+
+        for (int id = 0; id < index.size(); id++) {
+            if (dates[id] == NOT_RATED) {
+                continue;
+            }
+
+            Team t = new Team(index.getName(id));
+            t.addRating(dates[id], ratings[id]);
+            teams.put(t.getName(), t);
+        }
+
+        return teams;
+    }
+
+    /**
+     * The ratings of all teams at some point of a replay.
+     */
+    public static final class Checkpoint {
+
+        private final double[] ratings;
+        private final long[] dates;
+
+        private Checkpoint(double[] ratings, long[] dates) {
+            this.ratings = ratings;
+            this.dates = dates;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import java.util.Random;
+
+/**
+ * A SplitMix64 generator behind the java.util.Random API, so it can be used wherever
+ * a Random is expected. Unlike Random it keeps its state in a plain long, so there is 
+ * no compare-and-set on every number. An instance must not be shared between threads.
+ *
+ * Each simulation run can have its own stream, see {@link #forRun(long, long)}, which
+ * makes a run give the same result no matter which thread runs it.
+ *
+ * @author Victor Santiago
+ */
+public class SplitMix64Random extends Random {
+
+    private static final long serialVersionUID = 6046187296137245921L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public SplitMix64Random(long seed) {
+        super(0);
+        this.state = seed;
+    }
+
+    /**
+     * Starts the stream of a given run.
+     *
+     * @param seed Seed of all the runs.
+     * @param run Number of the run.
+     * @return This generator, for convenience.
+     */
+    public SplitMix64Random forRun(long seed, long run) {
+        state = mix64(seed + (run + 1) * GOLDEN_GAMMA);
+        return this;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        //Called by the Random constructor too, before the state is set
+        state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    @Override
+    public double nextDouble() {
+        //One number instead of the two used by Random
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import victor.santiago.soccer.elo.ratings.model.Team;
+
+/**
+ * Reads and writes the rating history of teams in a compact binary format.
+ *
+ * The file has a header (magic number and version), the team names, the number of 
+ * ratings of each team and then two columns with the dates (milliseconds since the epoch)
+ * and values of every rating, team after team. It's read through a memory-mapped buffer,
+ * with the slice of each team copied in bulk straight into its arrays.
+ *
+ * @author Victor Santiago
+ */
+public final class TeamSnapshot {
+
+    private static final int MAGIC = 0x454C4F53;
+    private static final int VERSION = 1;
+
+    private TeamSnapshot() { }
+
+    public static void write(Map<String, Team> teams, String path) throws IOException {
+        List<Team> list = new ArrayList<>(teams.values());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(Paths.get(path))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(list.size());
+
+            for (Team t : list) {
+                byte[] name = t.getName().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+            }
+
+            for (Team t : list) {
+                out.writeInt(t.getRatingCount());
+            }
+
+            for (Team t : list) {
+                for (int i = 0; i < t.getRatingCount(); i++) {
+                    out.writeLong(t.getRatingDate(i));
+                }
+            }
+
+            for (Team t : list) {
+                for (int i = 0; i < t.getRatingCount(); i++) {
+                    out.writeDouble(t.getRatingValue(i));
+                }
+            }
+        }
+    }
+
+    public static Map<String, Team> read(String path) throws IOException {
+        Path file = Paths.get(path);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to be mapped: " + path);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer, path);
+        }
+    }
+
+    private static Map<String, Team> read(ByteBuffer buffer, String path) throws IOException {
+        try {
+            return readTeams(buffer, path);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated snapshot: " + path, e);
+        }
+    }
+
+    private static Map<String, Team> readTeams(ByteBuffer buffer, String path) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a team snapshot: " + path);
+        }
+
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ": " + path);
+        }
+
+        //Each team has at least the length of its name and its number of ratings
+        int teamCount = getCount(buffer, 8, path);
+        String[] names = new String[teamCount];
+        for (int i = 0; i < teamCount; i++) {
+            byte[] name = new byte[getCount(buffer, 1, path)];
+            buffer.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+        }
+
+        if (buffer.remaining() < 4L * teamCount) {
+            throw new IOException("Truncated snapshot: " + path);
+        }
+
+        int[] counts = new int[teamCount];
+        long total = 0;
+        for (int i = 0; i < teamCount; i++) {
+            counts[i] = buffer.getInt();
+            if (counts[i] < 0) {
+                throw new IOException("Corrupt snapshot: " + path);
+            }
+            total += counts[i];
+        }
+
+        //A date and a value for each rating, and nothing else
+        if (total * 16 != buffer.remaining()) {
+            throw new IOException("Corrupt snapshot, the ratings don't match their count: " + path);
+        }
+
+        LongBuffer dates = buffer.asLongBuffer();
+        buffer.position(buffer.position() + 8 * (int) total);
+        DoubleBuffer ratings = buffer.asDoubleBuffer();
+
+        Map<String, Team> teams = new HashMap<>();
+        for (int i = 0; i < teamCount; i++) {
+            long[] teamDates = new long[counts[i]];
+            double[] teamRatings = new double[counts[i]];
+            dates.get(teamDates);
+            ratings.get(teamRatings);
+
+            teams.put(names[i], new Team(names[i], teamDates, teamRatings));
+        }
+
+        return teams;
+    }
+
+    /**
+     * Reads a count, checking there are enough bytes left for that many items.
+     */
+    private static int getCount(ByteBuffer buffer, int bytesEach, String path) throws IOException {
+        if (buffer.remaining() < 4) {
+            throw new IOException("Truncated snapshot: " + path);
+        }
+
+        int count = buffer.getInt();
+        if (count < 0 || (long) count * bytesEach > buffer.remaining()) {
+            throw new IOException("Corrupt snapshot: " + path);
+        }
+
+        return count;
+    }
+}
@@ -29,9 +29,6 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
 
 /**
@@ -55,15 +52,10 @@ public class Util {
     }
     
     public static Date addOneDayToDate(Date date) {
-        Calendar c = Calendar.getInstance();
-        c.setTime(date);
-        c.add(Calendar.DATE, 1);
-        
-        return c.getTime();
+        return new Date(Dates.addOneDay(date.getTime()));
     }
     
     public static String getDateAsString(Date d) {
-        DateFormat df = new SimpleDateFormat("dd/MM/yyyy");
-        return df.format(d);
+        return Dates.formatShort(d.getTime());
     }
 }
@@ -24,14 +24,15 @@
 
 package victor.santiago.soccer.elo.ratings.model;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import com.google.gson.annotations.JsonAdapter;
+
 import java.util.Date;
-import java.util.Locale;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import victor.santiago.soccer.elo.ratings.helper.Dates;
+
 /**
  *
  * @author Victor Santiago
@@ -39,17 +40,24 @@ import lombok.Data;
 @Data
 @AllArgsConstructor
 public class EloRating {
+
+    public static final double INITIAL_RATING = 1500;
     
-    private Date date;
+    //In milliseconds since the epoch, written as a date in the JSON files
+    @JsonAdapter(Dates.Adapter.class)
+    private long date;
     private double rating;
 
     public EloRating() {
-        date = new Date();
-        rating = 1500;
+        date = System.currentTimeMillis();
+        rating = INITIAL_RATING;
+    }
+
+    public EloRating(Date date, double rating) {
+        this(date.getTime(), rating);
     }
 
     public String getDateAsString() {
-        DateFormat df = new SimpleDateFormat("d-MMM-yyyy", Locale.US);
-        return df.format(date);
+        return Dates.formatDay(date);
     }
 }
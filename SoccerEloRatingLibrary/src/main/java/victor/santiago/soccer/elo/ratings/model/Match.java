@@ -25,24 +25,25 @@
 package victor.santiago.soccer.elo.ratings.model;
 
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 
 import java.io.Serializable;
-import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
+import victor.santiago.soccer.elo.ratings.helper.Dates;
+
 @Data
 @AllArgsConstructor
 @Builder
 public class Match implements Serializable, Comparable<Match> {
 
-    private static final long serialVersionUID = 2479667238057736526L;
+    private static final long serialVersionUID = -3118297437765418140L;
 
     @SerializedName("home")
     @Expose
@@ -56,15 +57,24 @@ public class Match implements Serializable, Comparable<Match> {
     @SerializedName("awayGoals")
     @Expose
     private int awayGoals;
+    //In milliseconds since the epoch, written as a date in the JSON files
     @SerializedName("date")
     @Expose
-    private Date date;
+    @JsonAdapter(Dates.Adapter.class)
+    private long date;
 
     private double customK;
 
+    public void setDate(long date) {
+        this.date = date;
+    }
+
+    public void setDate(Date date) {
+        this.date = date.getTime();
+    }
+
     public void setDate(String date) throws ParseException {
-        DateFormat df = new SimpleDateFormat("MMM dd, yyyy HH:mm:ss aa");
-        this.date = df.parse(date);
+        this.date = Dates.parse(date);
     }
 
     public String getWinner() {
@@ -83,7 +93,19 @@ public class Match implements Serializable, Comparable<Match> {
 
     @Override
     public int compareTo(Match o) {
-        return this.getDate().compareTo(o.getDate());
+        return Long.compare(this.date, o.getDate());
+    }
+
+    public static class MatchBuilder {
+
+        public MatchBuilder date(long date) {
+            this.date = date;
+            return this;
+        }
+
+        public MatchBuilder date(Date date) {
+            return date(date.getTime());
+        }
     }
 
 }
@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A list of matches stored as columns of primitives, with the teams
+ * replaced by their ids in a {@link TeamIndex}.
+ *
+ * @author Victor Santiago
+ */
+public class MatchTable {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int size;
+    private int[] home;
+    private int[] away;
+    private int[] homeGoals;
+    private int[] awayGoals;
+    private long[] dates;
+    private double[] customK;
+
+    public MatchTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public MatchTable(int capacity) {
+        capacity = Math.max(capacity, 1);
+        home = new int[capacity];
+        away = new int[capacity];
+        homeGoals = new int[capacity];
+        awayGoals = new int[capacity];
+        dates = new long[capacity];
+        customK = new double[capacity];
+    }
+
+    /**
+     * Builds a table with the given matches, in the same order.
+     *
+     * @param matches The matches to add.
+     * @param index Where the team names are interned.
+     * @return The table with all the matches.
+     */
+    public static MatchTable compile(List<Match> matches, TeamIndex index) {
+        MatchTable table = new MatchTable(matches.size());
+
+        for (Match m : matches) {
+            table.add(m, index);
+        }
+
+        return table;
+    }
+
+    public void add(Match m, TeamIndex index) {
+        add(index.intern(m.getHome()), index.intern(m.getAway()),
+                m.getHomeGoals(), m.getAwayGoals(), m.getDate(), m.getCustomK());
+    }
+
+    public void add(int homeId, int awayId, int homeScore, int awayScore, long date, double k) {
+        ensureCapacity(size + 1);
+
+        home[size] = homeId;
+        away[size] = awayId;
+        homeGoals[size] = homeScore;
+        awayGoals[size] = awayScore;
+        dates[size] = date;
+        customK[size] = k;
+        size++;
+    }
+
+    /**
+     * Inserts a match before the one currently at the given position.
+     *
+     * @param position Where the match is inserted, between 0 and size().
+     */
+    public void insert(int position, int homeId, int awayId, int homeScore, int awayScore,
+            long date, double k) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + size);
+        }
+
+        ensureCapacity(size + 1);
+
+        int moved = size - position;
+        System.arraycopy(home, position, home, position + 1, moved);
+        System.arraycopy(away, position, away, position + 1, moved);
+        System.arraycopy(homeGoals, position, homeGoals, position + 1, moved);
+        System.arraycopy(awayGoals, position, awayGoals, position + 1, moved);
+        System.arraycopy(dates, position, dates, position + 1, moved);
+        System.arraycopy(customK, position, customK, position + 1, moved);
+
+        home[position] = homeId;
+        away[position] = awayId;
+        homeGoals[position] = homeScore;
+        awayGoals[position] = awayScore;
+        dates[position] = date;
+        customK[position] = k;
+        size++;
+    }
+
+    /**
+     * Finds where a match should go to keep the table sorted by date.
+     * The table must already be sorted.
+     *
+     * @param date The date, in milliseconds since the epoch.
+     * @return The position after the last match on or before the date.
+     */
+    public int getPositionAfter(long date) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (dates[middle] <= date) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= home.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(capacity, home.length * 2);
+        home = Arrays.copyOf(home, newCapacity);
+        away = Arrays.copyOf(away, newCapacity);
+        homeGoals = Arrays.copyOf(homeGoals, newCapacity);
+        awayGoals = Arrays.copyOf(awayGoals, newCapacity);
+        dates = Arrays.copyOf(dates, newCapacity);
+        customK = Arrays.copyOf(customK, newCapacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getHome(int i) {
+        return home[i];
+    }
+
+    public int getAway(int i) {
+        return away[i];
+    }
+
+    public int getHomeGoals(int i) {
+        return homeGoals[i];
+    }
+
+    public int getAwayGoals(int i) {
+        return awayGoals[i];
+    }
+
+    /**
+     * @param i The match position.
+     * @return The date of the match, in milliseconds since the epoch.
+     */
+    public long getDate(int i) {
+        return dates[i];
+    }
+
+    /**
+     * @param i The match position.
+     * @return The K of the match, or 0 if it uses the default one.
+     */
+    public double getCustomK(int i) {
+        return customK[i];
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import java.util.Random;
+
+/**
+ * How the result of a simulated match is drawn from the winning probability of the home team.
+ *
+ * To keep the runs free of allocations, a model keeps whatever it needs for a fixture 
+ * in a slice of a double array: it's prepared once per pair of ratings and read on every draw. 
+ * A model must not keep any state of its own between calls, since it's shared by all threads.
+ *
+ * @author Victor Santiago
+ */
+public interface OutcomeModel {
+
+    /**
+     * @return How many doubles the model needs for each fixture.
+     */
+    int getParameterCount();
+
+    /**
+     * Calculates what is needed to draw the result of a fixture.
+     *
+     * @param homeProbability Winning probability of the home team, between 0 and 100.
+     * @param tieMargin % above or bellow the probability which we can consider a tie.
+     * @param parameters Where the parameters are written.
+     * @param offset First position of the fixture in parameters.
+     */
+    void prepare(double homeProbability, int tieMargin, double[] parameters, int offset);
+
+    /**
+     * Draws the result of a fixture.
+     *
+     * @param parameters The parameters written by {@link #prepare(double, int, double[], int)}.
+     * @param offset First position of the fixture in parameters.
+     * @param random Random stream used to decide the result.
+     * @return The scoreline, see {@link #getScoreline(int, int)}.
+     */
+    int draw(double[] parameters, int offset, Random random);
+
+    /**
+     * Packs a scoreline in an int, so it can be returned without an allocation.
+     */
+    static int getScoreline(int homeGoals, int awayGoals) {
+        return (homeGoals << 16) | awayGoals;
+    }
+
+    static int getHomeGoals(int scoreline) {
+        return scoreline >>> 16;
+    }
+
+    static int getAwayGoals(int scoreline) {
+        return scoreline & 0xFFFF;
+    }
+}
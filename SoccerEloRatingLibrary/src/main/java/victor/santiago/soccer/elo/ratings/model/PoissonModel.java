@@ -0,0 +1,140 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import java.util.Random;
+
+/**
+ * Draws the goals of each team from a Poisson distribution, so wins can be 
+ * by more than one goal and the goal difference matters in the table.
+ *
+ * The expected goals of a match are split between the teams by their winning expectancy, 
+ * e.g. with 2.70 goals per match, a team with an expectancy of 0.60 scores 1.62 goals 
+ * on average and its opponent 1.08. With shared goals, both teams also score the same 
+ * Poisson draw (a bivariate Poisson), which makes ties more likely.
+ *
+ * The cumulative probabilities of 0 to {@link #getMaxGoals()} goals are calculated once 
+ * per fixture, so a draw is a uniform number and a short search. Each Poisson draw is capped
+ * at the max goals, the tail is added to it.
+ *
+ * @author Victor Santiago
+ */
+public final class PoissonModel implements OutcomeModel {
+
+    public static final double DEFAULT_AVERAGE_GOALS = 2.70;
+    public static final int DEFAULT_MAX_GOALS = 10;
+
+    private final double averageGoals;
+    private final double sharedGoals;
+    private final int maxGoals;
+
+    public PoissonModel() {
+        this(DEFAULT_AVERAGE_GOALS, 0, DEFAULT_MAX_GOALS);
+    }
+
+    /**
+     * @param averageGoals Expected goals in a match, of both teams together.
+     * @param sharedGoals Expected goals scored by both teams (the covariance), 0 for independent goals.
+     * @param maxGoals Most goals of a single Poisson draw.
+     */
+    public PoissonModel(double averageGoals, double sharedGoals, int maxGoals) {
+        if (averageGoals <= 2 * sharedGoals || sharedGoals < 0) {
+            throw new IllegalArgumentException("The shared goals must be between 0 and half the average goals.");
+        }
+        if (maxGoals < 1) {
+            throw new IllegalArgumentException("The max goals must be at least 1.");
+        }
+
+        this.averageGoals = averageGoals;
+        this.sharedGoals = sharedGoals;
+        this.maxGoals = maxGoals;
+    }
+
+    public double getAverageGoals() {
+        return averageGoals;
+    }
+
+    public double getSharedGoals() {
+        return sharedGoals;
+    }
+
+    public int getMaxGoals() {
+        return maxGoals;
+    }
+
+    @Override
+    public int getParameterCount() {
+        //The shared goals are only kept when there are any
+        return (sharedGoals > 0 ? 3 : 2) * (maxGoals + 1);
+    }
+
+    @Override
+    public void prepare(double homeProbability, int tieMargin, double[] parameters, int offset) {
+        double expectancy = homeProbability / 100.00;
+        double ownGoals = averageGoals - 2 * sharedGoals;
+
+        fillCumulativeProbabilities(ownGoals * expectancy, parameters, offset);
+        fillCumulativeProbabilities(ownGoals * (1.00 - expectancy), parameters, offset + maxGoals + 1);
+        if (sharedGoals > 0) {
+            fillCumulativeProbabilities(sharedGoals, parameters, offset + 2 * (maxGoals + 1));
+        }
+    }
+
+    private void fillCumulativeProbabilities(double lambda, double[] parameters, int offset) {
+        double probability = Math.exp(-lambda);
+        double cumulative = probability;
+
+        for (int goals = 0; goals < maxGoals; goals++) {
+            parameters[offset + goals] = cumulative;
+            probability *= lambda / (goals + 1);
+            cumulative += probability;
+        }
+        parameters[offset + maxGoals] = 1.00;
+    }
+
+    @Override
+    public int draw(double[] parameters, int offset, Random random) {
+        int homeGoals = drawGoals(parameters, offset, random);
+        int awayGoals = drawGoals(parameters, offset + maxGoals + 1, random);
+
+        if (sharedGoals > 0) {
+            int shared = drawGoals(parameters, offset + 2 * (maxGoals + 1), random);
+            homeGoals += shared;
+            awayGoals += shared;
+        }
+
+        return OutcomeModel.getScoreline(homeGoals, awayGoals);
+    }
+
+    private static int drawGoals(double[] cumulative, int offset, Random random) {
+        double u = random.nextDouble();
+        int goals = 0;
+
+        while (u >= cumulative[offset + goals]) {
+            goals++;
+        }
+
+        return goals;
+    }
+}
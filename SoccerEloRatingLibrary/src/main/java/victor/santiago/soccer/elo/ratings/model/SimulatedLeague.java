@@ -25,27 +25,27 @@
 package victor.santiago.soccer.elo.ratings.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
-
-import victor.santiago.soccer.elo.ratings.helper.EloHelper;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 /**
  *
  * @author Victor Santiago
  */
 @Data
-@Builder
+@ToString(exclude = "kernel")
 public class SimulatedLeague {
 
-    private static final Random RANDOM = new Random();
-
     private List<Match> matches;
     private Map<String, Team> teams;
     
@@ -53,8 +53,13 @@ public class SimulatedLeague {
     private int tieMargin;
     private int k;
 
-    private EloHelper elo;
-    private Map<String, TeamPerformance> perfomances;
+    //How the results are drawn, the tie margin by default.
+    private OutcomeModel outcomeModel = TieMarginModel.INSTANCE;
+
+    //Compiled for the last ratings used, shared by all runs (and threads) with the same ratings.
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient volatile SimulationKernel kernel;
 
     public SimulatedLeague(Map<String, Team> teams, int tieMargin, int k) {
         this.teams = teams;
@@ -77,6 +82,7 @@ public class SimulatedLeague {
         k = 20;
     }
 
+    @Builder
     public SimulatedLeague(List<Match> matches, Map<String, Team> teams, 
             int tieMargin, int k) {
         this.matches = matches;
@@ -91,6 +97,12 @@ public class SimulatedLeague {
 
     public void addMatch(Match match) {
         this.matches.add(match);
+        kernel = null;
+    }
+
+    public void setMatches(List<Match> matches) {
+        this.matches = matches;
+        kernel = null;
     }
     
     /**
@@ -102,139 +114,49 @@ public class SimulatedLeague {
      * @return  A map with team -> Performance
      */
     public Map<String, TeamPerformance> simulate(boolean updateRatings, boolean useRealResults) {
-        //TODO This is waaaay too long and complicated. It NEEDS to be refactored.
-        HashMap<String, Team> teams = new HashMap<>(this.teams);
-        List<Match> matches = new ArrayList<>(this.matches);
-        perfomances = new HashMap<>();
-        elo = new EloHelper(teams, k, false);
-        Collections.sort(matches);
-        
-        List<Match> real = getPastMatches(matches);
-        if (useRealResults) {
-            elo.updateRatingsWithMatches(new ArrayList<Match>(real));
-            realResults(real);
-        }
-        
-        int winningRange;
-        int goalDiff;
-        double homeProbability;
-        double awayProbability;
-        double diffProbability;
-        TeamPerformance homePerformance;
-        TeamPerformance awayPerformance;
-        for (Match m : matches) {
-            if (useRealResults &&
-                    m.getHomeGoals() != -1 && m.getAwayGoals() != -1) {
-                continue;
-            }
-
-            homePerformance = perfomances.containsKey(m.getHome()) ? 
-                    perfomances.get(m.getHome()) : new TeamPerformance(m.getHome());
-            awayPerformance = perfomances.containsKey(m.getAway()) ? 
-                    perfomances.get(m.getAway()) : new TeamPerformance(m.getAway());
-            
-            winningRange = RANDOM.nextInt(101);
-            homeProbability = elo.getWinningProbability(m);
-            awayProbability = 100 - homeProbability;
-            
-            diffProbability = Math.abs(homeProbability - awayProbability);
-            //goalDiff = 0;
-            //if(diffProbability >= 30) {
-            //  goalDiff = r.nextInt(2) + 1;
-            //}
-            goalDiff = 1;
-                        
-            if (winningRange <= homeProbability + tieMargin &&
-                    winningRange >= homeProbability - tieMargin) { //Tie
-                //m.setAwayGoals(0);
-                //m.setHomeGoals(0);
-                                
-                homePerformance.increaseTie();
-                awayPerformance.increaseTie();
-            } else if (winningRange < homeProbability - tieMargin) { //Home win
-                homePerformance.increaseWin();
-                awayPerformance.increaseLosses();
-                
-                //In the future, if the diff in probability is > 30, 
-                //we can randomly give the victory by 1 or 2 goals
-                goalDiff = diffProbability < 30 ? 1 : goalDiff;
-                
-                //m.setHomeGoals(goalDiff);
-                //m.setAwayGoals(0);
-                
-                homePerformance.increaseGoalsBy(goalDiff);
-                awayPerformance.increaseGoalsBy(-goalDiff);
-            } else { //Away win
-                homePerformance.increaseLosses();
-                awayPerformance.increaseWin();
-                
-                //If the diff in probability is > 30, we can randomly give the victory by 1 or 2 goals
-                goalDiff = diffProbability < 30 ? 1 : goalDiff;
-                
-                //m.setHomeGoals(0);
-                //m.setAwayGoals(goalDiff);
-                
-                
-                homePerformance.increaseGoalsBy(-goalDiff);
-                awayPerformance.increaseGoalsBy(goalDiff);
-            }
-            
-            //if(updateRatings) elo.updateRatings(m);
-            
-            perfomances.put(homePerformance.getTeam(), homePerformance);
-            perfomances.put(awayPerformance.getTeam(), awayPerformance);
-        }
-                                
-        return perfomances;
+        return simulate(updateRatings, useRealResults, ThreadLocalRandom.current());
     }
 
-    private Map<String, TeamPerformance> realResults(List<Match> matches) {
-        TeamPerformance homePerformance;
-        TeamPerformance awayPerformance;
-        for (Match m : matches) {
-            homePerformance = perfomances.containsKey(m.getHome())
-                    ? perfomances.get(m.getHome()) : new TeamPerformance(m.getHome());
-            awayPerformance = perfomances.containsKey(m.getAway())
-                    ? perfomances.get(m.getAway()) : new TeamPerformance(m.getAway());
-                
-            int increaseGoals = Math.abs(m.getHomeGoals() - m.getAwayGoals());
-                
-            if (m.getAwayGoals() == m.getHomeGoals()) { //Tie
-                homePerformance.increaseTie();
-                awayPerformance.increaseTie();
-            } else if (m.getHomeGoals() > m.getAwayGoals()) { //Home win
-                homePerformance.increaseWin();
-                awayPerformance.increaseLosses();
-                        
-                homePerformance.increaseGoalsBy(increaseGoals);
-                awayPerformance.increaseGoalsBy(-increaseGoals);
-            } else if (m.getAwayGoals() > m.getHomeGoals()) { //Away Win
-                homePerformance.increaseLosses();
-                awayPerformance.increaseWin();
-                    
-                homePerformance.increaseGoalsBy(-increaseGoals);
-                awayPerformance.increaseGoalsBy(increaseGoals);
-            }
-                
-            //elo.updateRatings(m);
-                
-            perfomances.put(homePerformance.getTeam(), homePerformance);
-            perfomances.put(awayPerformance.getTeam(), awayPerformance);
-        }
+    /**
+     * Same as {@link #simulate(boolean, boolean)}, but drawing the results from the given
+     * random stream. The league itself is not modified, so different threads can simulate
+     * it at the same time as long as each one has its own Random.
+     *
+     * @param updateRatings Updates a team rating when it wins or loses in a simulated game.
+     * @param useRealResults Uses results from matches that already happened.
+     * @param random Random stream used to decide the simulated results.
+     * @return  A map with team -> Performance
+     */
+    public Map<String, TeamPerformance> simulate(boolean updateRatings, boolean useRealResults,
+            Random random) {
+        SimulationKernel kernel = getKernel(useRealResults);
+        SimulationKernel.Season season = kernel.newSeason();
+
+        kernel.simulate(random, season, updateRatings);
 
-        return perfomances;
+        return kernel.getPerformances(season);
     }
-    
-    private List<Match> getPastMatches(List<Match> matches) {
-        List<Match> real = new ArrayList<>();
-        
-        for (Match m : matches) {
-            if (m.getAwayGoals() != -1 && m.getHomeGoals() != -1) {
-                real.add(m);
-            }
+
+    /**
+     * Compiles the league for simulations. Sorting the matches, replaying the real results 
+     * and calculating the probabilities only depend on the matches and the current ratings, 
+     * so the kernel is kept and only compiled again when one of them changes, including
+     * a result entered in a match of the list or a match replaced in it.
+     *
+     * @param useRealResults Uses results from matches that already happened.
+     * @return The compiled league, which can be shared between threads.
+     */
+    public SimulationKernel getKernel(boolean useRealResults) {
+        SimulationKernel compiled = kernel;
+
+        if (compiled == null 
+                || !compiled.isValidFor(matches, teams, tieMargin, k, useRealResults, outcomeModel)) {
+            compiled = new SimulationKernel(matches, teams, tieMargin, k, useRealResults, 
+                    outcomeModel);
+            kernel = compiled;
         }
 
-        return real;
+        return compiled;
     }
     
 }
@@ -0,0 +1,470 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+import victor.santiago.soccer.elo.ratings.helper.EloHelper;
+import victor.santiago.soccer.elo.ratings.helper.WinningExpectancy;
+
+/**
+ * A league compiled for simulations.
+ *
+ * Everything that is the same in every run is done once: the matches are sorted, 
+ * the real results are counted and replayed, the teams get int ids and the {@link OutcomeModel}
+ * prepares each fixture from the probabilities of the teams. A run then only draws 
+ * the results of the fixtures into a reusable {@link Season}, without any allocation
+ * or map lookup. When the ratings are updated during a run, they are kept in the Season too,
+ * so not even the teams' rating histories are touched. A kernel never changes after it's built,
+ * so it can be shared between threads, as long as each thread has its own Season and Random.
+ *
+ * @author Victor Santiago
+ */
+public class SimulationKernel {
+
+    private final TeamIndex index;
+    private final double[] baseRatings;
+    private final int matchCount;
+    private final long fingerprint;
+    private final int tieMargin;
+    private final int k;
+    private final boolean useRealResults;
+    private final OutcomeModel model;
+
+    private final int[] basePoints;
+    private final int[] baseWins;
+    private final int[] baseTies;
+    private final int[] baseLosses;
+    private final int[] baseGoals;
+    private final double[] startRatings;
+
+    private final int[] home;
+    private final int[] away;
+    private final double[] parameters;
+    private final double[] fixtureKs;
+
+    /**
+     * @param matches The matches of the league. Matches to be simulated have -1 goals.
+     * @param teams The teams, with their current ratings.
+     * @param tieMargin % above or bellow the probability which we can consider a tie.
+     * @param k K used to update the ratings with the real results.
+     * @param useRealResults Uses results from matches that already happened.
+     */
+    public SimulationKernel(List<Match> matches, Map<String, Team> teams, int tieMargin, int k,
+            boolean useRealResults) {
+        this(matches, teams, tieMargin, k, useRealResults, TieMarginModel.INSTANCE);
+    }
+
+    /**
+     * @param matches The matches of the league. Matches to be simulated have -1 goals.
+     * @param teams The teams, with their current ratings.
+     * @param tieMargin % above or bellow the probability which we can consider a tie.
+     * @param k K used to update the ratings with the real results.
+     * @param useRealResults Uses results from matches that already happened.
+     * @param model How the results are drawn.
+     */
+    public SimulationKernel(List<Match> matches, Map<String, Team> teams, int tieMargin, int k,
+            boolean useRealResults, OutcomeModel model) {
+        this.matchCount = matches.size();
+        this.fingerprint = getFingerprint(matches);
+        this.model = model;
+        this.tieMargin = tieMargin;
+        this.k = k;
+        this.useRealResults = useRealResults;
+
+        List<Match> sorted = new ArrayList<>(matches);
+        Collections.sort(sorted);
+
+        index = new TeamIndex();
+        for (Match m : sorted) {
+            index.intern(m.getHome());
+            index.intern(m.getAway());
+        }
+
+        int n = index.size();
+        if (n > Ranking.MAX_TEAMS) {
+            throw new IllegalArgumentException("A league can't have more than " 
+                    + Ranking.MAX_TEAMS + " teams.");
+        }
+
+        baseRatings = new double[n];
+        for (int i = 0; i < n; i++) {
+            baseRatings[i] = getCurrentRating(teams, index.getName(i));
+        }
+
+        basePoints = new int[n];
+        baseWins = new int[n];
+        baseTies = new int[n];
+        baseLosses = new int[n];
+        baseGoals = new int[n];
+
+        EloHelper elo = new EloHelper(getTeamsSnapshot(), k, false);
+        List<Match> pending = new ArrayList<>();
+        ArrayList<Match> real = new ArrayList<>();
+        for (Match m : sorted) {
+            if (useRealResults && m.getHomeGoals() != -1 && m.getAwayGoals() != -1) {
+                real.add(m);
+            } else {
+                pending.add(m);
+            }
+        }
+
+        if (useRealResults) {
+            elo.updateRatingsWithMatches(real);
+            countRealResults(real);
+        }
+
+        startRatings = new double[n];
+        for (int i = 0; i < n; i++) {
+            startRatings[i] = elo.getTeam(index.getName(i)).getCurrentRating();
+        }
+
+        int count = model.getParameterCount();
+        home = new int[pending.size()];
+        away = new int[pending.size()];
+        parameters = new double[pending.size() * count];
+        fixtureKs = new double[pending.size()];
+        for (int i = 0; i < pending.size(); i++) {
+            Match m = pending.get(i);
+
+            home[i] = index.getId(m.getHome());
+            away[i] = index.getId(m.getAway());
+            model.prepare(getHomeProbability(startRatings[home[i]], startRatings[away[i]]), 
+                    tieMargin, parameters, i * count);
+            fixtureKs[i] = m.hasCustomK() ? m.getCustomK() : k;
+        }
+    }
+
+    //Same as EloHelper.getWinningProbability
+    private static double getHomeProbability(double ratingHome, double ratingAway) {
+        return 100.00 * WinningExpectancy.EXACT.of(ratingHome - ratingAway);
+    }
+
+    private static double getCurrentRating(Map<String, Team> teams, String name) {
+        Team t = teams.get(name);
+        return t == null ? EloRating.INITIAL_RATING : t.getCurrentRating();
+    }
+
+    /**
+     * Copies the teams with only their current rating, so the real results
+     * don't leak into the league's own teams.
+     */
+    private Map<String, Team> getTeamsSnapshot() {
+        Map<String, Team> snapshot = new HashMap<>();
+
+        for (int i = 0; i < index.size(); i++) {
+            Team copy = new Team(index.getName(i));
+            copy.addRating(0, baseRatings[i]);
+            snapshot.put(copy.getName(), copy);
+        }
+
+        return snapshot;
+    }
+
+    private void countRealResults(List<Match> real) {
+        for (Match m : real) {
+            int h = index.getId(m.getHome());
+            int a = index.getId(m.getAway());
+            int increaseGoals = Math.abs(m.getHomeGoals() - m.getAwayGoals());
+
+            if (m.getAwayGoals() == m.getHomeGoals()) { //Tie
+                addTie(basePoints, baseTies, h, a);
+            } else if (m.getHomeGoals() > m.getAwayGoals()) { //Home win
+                addWin(basePoints, baseWins, baseLosses, baseGoals, h, a, increaseGoals);
+            } else { //Away Win
+                addWin(basePoints, baseWins, baseLosses, baseGoals, a, h, increaseGoals);
+            }
+        }
+    }
+
+    private static void addTie(int[] points, int[] ties, int home, int away) {
+        points[home]++;
+        points[away]++;
+        ties[home]++;
+        ties[away]++;
+    }
+
+    private static void addWin(int[] points, int[] wins, int[] losses, int[] goals,
+            int winner, int loser, int goalDiff) {
+        points[winner] += 3;
+        wins[winner]++;
+        losses[loser]++;
+        goals[winner] += goalDiff;
+        goals[loser] -= goalDiff;
+    }
+
+    /**
+     * @return A hash of the teams, goals, date and K of every match, in order, so a kernel
+     *         isn't reused after a result is entered or a match is replaced in the list.
+     */
+    private static long getFingerprint(List<Match> matches) {
+        long hash = matches.size();
+
+        for (Match m : matches) {
+            hash = mix(hash, Objects.hashCode(m.getHome()));
+            hash = mix(hash, Objects.hashCode(m.getAway()));
+            hash = mix(hash, ((long) m.getHomeGoals() << 32) | (m.getAwayGoals() & 0xFFFFFFFFL));
+            hash = mix(hash, m.getDate());
+            hash = mix(hash, Double.doubleToLongBits(m.getCustomK()));
+        }
+
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        long z = (hash + value) * 0x9E3779B97F4A7C15L;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @return True if this kernel was compiled from the same league and ratings.
+     */
+    public boolean isValidFor(List<Match> matches, Map<String, Team> teams, int tieMargin, int k,
+            boolean useRealResults, OutcomeModel model) {
+        if (matches.size() != matchCount || tieMargin != this.tieMargin || k != this.k
+                || useRealResults != this.useRealResults || model != this.model) {
+            return false;
+        }
+
+        if (getFingerprint(matches) != fingerprint) {
+            return false;
+        }
+
+        for (int i = 0; i < baseRatings.length; i++) {
+            if (getCurrentRating(teams, index.getName(i)) != baseRatings[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public TeamIndex getIndex() {
+        return index;
+    }
+
+    public OutcomeModel getModel() {
+        return model;
+    }
+
+    /**
+     * @return Number of fixtures simulated in each run.
+     */
+    public int getFixtureCount() {
+        return home.length;
+    }
+
+    public Season newSeason() {
+        return new Season(index.size(), model.getParameterCount());
+    }
+
+    /**
+     * Simulates the remaining fixtures once, with the same ratings for every fixture.
+     *
+     * @param random Random stream used to decide the results.
+     * @param season Where the final table is written. Its previous content is discarded.
+     */
+    public void simulate(Random random, Season season) {
+        simulate(random, season, false);
+    }
+
+    /**
+     * Simulates the remaining fixtures once.
+     *
+     * @param random Random stream used to decide the results.
+     * @param season Where the final table is written. Its previous content is discarded.
+     * @param updateRatings Updates the ratings after each simulated result, so the next 
+     *                      fixtures are drawn with them. The ratings start from the same 
+     *                      values in every run and are only kept in the season.
+     */
+    public void simulate(Random random, Season season, boolean updateRatings) {
+        int n = index.size();
+        int[] points = season.points;
+        int[] wins = season.wins;
+        int[] ties = season.ties;
+        int[] losses = season.losses;
+        int[] goals = season.goals;
+
+        System.arraycopy(basePoints, 0, points, 0, n);
+        System.arraycopy(baseWins, 0, wins, 0, n);
+        System.arraycopy(baseTies, 0, ties, 0, n);
+        System.arraycopy(baseLosses, 0, losses, 0, n);
+        System.arraycopy(baseGoals, 0, goals, 0, n);
+        System.arraycopy(startRatings, 0, season.ratings, 0, n);
+
+        int count = model.getParameterCount();
+        double[] scratch = season.parameters;
+        double[] ratings = season.ratings;
+
+        for (int i = 0; i < home.length; i++) {
+            int h = home[i];
+            int a = away[i];
+            int scoreline;
+
+            if (updateRatings) {
+                model.prepare(getHomeProbability(ratings[h], ratings[a]), tieMargin, scratch, 0);
+                scoreline = model.draw(scratch, 0, random);
+            } else {
+                scoreline = model.draw(parameters, i * count, random);
+            }
+
+            int homeGoals = OutcomeModel.getHomeGoals(scoreline);
+            int awayGoals = OutcomeModel.getAwayGoals(scoreline);
+
+            if (homeGoals > awayGoals) { //Home win
+                addWin(points, wins, losses, goals, h, a, homeGoals - awayGoals);
+            } else if (homeGoals == awayGoals) { //Tie
+                addTie(points, ties, h, a);
+            } else { //Away win
+                addWin(points, wins, losses, goals, a, h, awayGoals - homeGoals);
+            }
+
+            if (updateRatings) {
+                updateRatings(ratings, h, a, homeGoals, awayGoals, fixtureKs[i]);
+            }
+        }
+    }
+
+    //Same as EloHelper.updateRatings
+    private static void updateRatings(double[] ratings, int home, int away, 
+            int homeGoals, int awayGoals, double k) {
+        double ratingHome = ratings[home];
+        double ratingAway = ratings[away];
+        double resultHome = homeGoals > awayGoals ? 1.0 : homeGoals == awayGoals ? 0.5 : 0.0;
+        double gIndex = EloHelper.getGoalDifferenceIndex(homeGoals, awayGoals);
+
+        ratings[home] = ratingHome + k * gIndex 
+                * (resultHome - WinningExpectancy.EXACT.of(ratingHome - ratingAway));
+        ratings[away] = ratingAway + k * gIndex 
+                * ((1.0 - resultHome) - WinningExpectancy.EXACT.of(ratingAway - ratingHome));
+    }
+
+    /**
+     * @param season A simulated season.
+     * @return A map with team -> Performance.
+     */
+    public Map<String, TeamPerformance> getPerformances(Season season) {
+        Map<String, TeamPerformance> performances = new HashMap<>();
+
+        for (int i = 0; i < index.size(); i++) {
+            String name = index.getName(i);
+            performances.put(name, new TeamPerformance(name, season.wins[i], season.losses[i], 
+                    season.ties[i], season.points[i], season.goals[i]));
+        }
+
+        return performances;
+    }
+
+    /**
+     * The final table of a simulated season, indexed by team id.
+     */
+    public static final class Season {
+
+        private final int[] points;
+        private final int[] wins;
+        private final int[] ties;
+        private final int[] losses;
+        private final int[] goals;
+        private final int[] ranking;
+        private final long[] keys;
+        private final double[] ratings;
+        private final double[] parameters;
+
+        private Season(int teams, int parameterCount) {
+            points = new int[teams];
+            wins = new int[teams];
+            ties = new int[teams];
+            losses = new int[teams];
+            goals = new int[teams];
+            ranking = new int[teams];
+            keys = new long[teams];
+            ratings = new double[teams];
+            parameters = new double[parameterCount];
+        }
+
+        /**
+         * Sorts the teams by points, wins and goals, the same order as {@link TeamPerformance}.
+         * Teams that are tied in all three keep the order of their ids.
+         *
+         * @return The team ids from the champion to the last, reused by the next call.
+         */
+        public int[] rank() {
+            return rank(ranking.length, 0);
+        }
+
+        /**
+         * Same as {@link #rank()}, but only the first top and the last bottom positions 
+         * are sure to be right, see {@link Ranking#rank(long[], int, int, int)}.
+         *
+         * @return The team ids from the champion to the last, reused by the next call.
+         */
+        public int[] rank(int top, int bottom) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = Ranking.getKey(points[i], wins[i], goals[i], i);
+            }
+
+            Ranking.rank(keys, keys.length, top, bottom);
+
+            for (int i = 0; i < keys.length; i++) {
+                ranking[i] = Ranking.getId(keys[i]);
+            }
+
+            return ranking;
+        }
+
+        public int[] getPoints() {
+            return points;
+        }
+
+        public int[] getWins() {
+            return wins;
+        }
+
+        public int[] getTies() {
+            return ties;
+        }
+
+        public int[] getLosses() {
+            return losses;
+        }
+
+        public int[] getGoals() {
+            return goals;
+        }
+
+        /**
+         * @return The ratings at the end of the season. Only updated when the 
+         *         season was simulated updating the ratings.
+         */
+        public double[] getRatings() {
+            return ratings;
+        }
+    }
+}
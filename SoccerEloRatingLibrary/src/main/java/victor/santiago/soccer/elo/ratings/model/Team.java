@@ -21,48 +21,326 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-
 package victor.santiago.soccer.elo.ratings.model;
 
+import com.google.gson.annotations.JsonAdapter;
+
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.text.Normalizer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import victor.santiago.soccer.elo.ratings.helper.Dates;
 
-@Data
-@AllArgsConstructor
+/**
+ * A team and its rating history.
+ *
+ * The history is kept as two growable primitive columns (dates and ratings), 
+ * so adding a rating doesn't allocate any object. {@link EloRating} objects are 
+ * only created when the ratings are requested as such.
+ * 
+ * The history can be limited to the last N ratings, in which case the columns
+ * are used as a ring buffer and older ratings are dropped.
+ */
+@JsonAdapter(TeamTypeAdapterFactory.class)
 public class Team implements Comparable<Team> {
+
+    private static final int INITIAL_CAPACITY = 8;
     
     private String name;
-    private ArrayList<EloRating> ratings;
+    private int size;
+    private int first;
+    private int dropped;
+    private int historyLimit;
+    private long[] dates;
+    private double[] ratings;
 
     public Team() {
-        name = "Unknown";
-        ratings = new ArrayList<>();
+        this("Unknown");
     }
 
     public Team(String name) {
         this.name = name;
-        ratings = new ArrayList<>();
+        this.dates = new long[INITIAL_CAPACITY];
+        this.ratings = new double[INITIAL_CAPACITY];
     }
 
-    public EloRating getLastRating() {
-        int lastIndex = ratings.size() - 1;
+    /**
+     * Creates a team that only keeps its last ratings.
+     * 
+     * @param name The team name.
+     * @param historyLimit Maximum number of ratings kept, 0 to keep all of them.
+     */
+    public Team(String name, int historyLimit) {
+        this(name);
+        setHistoryLimit(historyLimit);
+    }
+
+    public Team(String name, List<EloRating> ratings) {
+        this(name);
+        setRatings(ratings);
+    }
+
+    /**
+     * Creates a team with the given history. The arrays are used as they are, not copied.
+     * 
+     * @param name The team name.
+     * @param dates Dates of the ratings, in milliseconds since the epoch.
+     * @param ratings Ratings, same size as the dates.
+     */
+    public Team(String name, long[] dates, double[] ratings) {
+        if (dates.length != ratings.length) {
+            throw new IllegalArgumentException("There must be one date per rating.");
+        }
+
+        this.name = name;
+        this.size = dates.length;
+        this.dates = dates;
+        this.ratings = ratings;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * The history is kept in primitive columns, so this list is built on every call.
+     * Unlike previous versions, adding, removing or editing its ratings doesn't change 
+     * the team: use {@link #addRating(long, double)} or {@link #setRatings(List)} instead.
+     * 
+     * @return A copy of the rating history.
+     */
+    public ArrayList<EloRating> getRatings() {
+        ArrayList<EloRating> list = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            list.add(getRating(i));
+        }
+
+        return list;
+    }
+
+    public void setRatings(List<EloRating> ratings) {
+        size = 0;
+        first = 0;
+        dropped = 0;
+
+        for (EloRating rating : ratings) {
+            addRating(rating);
+        }
+    }
+
+    /**
+     * @return Number of ratings kept in the history.
+     */
+    public int getRatingCount() {
+        return size;
+    }
+
+    /**
+     * @return Number of ratings dropped because of the history limit.
+     */
+    public int getDroppedRatingCount() {
+        return dropped;
+    }
+
+    public int getHistoryLimit() {
+        return historyLimit;
+    }
+
+    /**
+     * Limits the history to the last N ratings. Older ratings are dropped right away.
+     * A limit of 1 keeps only the current rating.
+     * 
+     * @param historyLimit Maximum number of ratings kept, 0 to keep all of them.
+     */
+    public void setHistoryLimit(int historyLimit) {
+        if (historyLimit < 0) {
+            throw new IllegalArgumentException("The history limit can't be negative.");
+        }
+
+        int kept = historyLimit == 0 ? size : Math.min(size, historyLimit);
+        int capacity = historyLimit == 0 ? Math.max(INITIAL_CAPACITY, kept) : historyLimit;
+        long[] newDates = new long[capacity];
+        double[] newRatings = new double[capacity];
+
+        for (int i = 0; i < kept; i++) {
+            newDates[i] = dates[slot(size - kept + i)];
+            newRatings[i] = ratings[slot(size - kept + i)];
+        }
+
+        this.dropped += size - kept;
+        this.size = kept;
+        this.first = 0;
+        this.dates = newDates;
+        this.ratings = newRatings;
+        this.historyLimit = historyLimit;
+    }
+
+    //Position in the columns of the i-th rating kept
+    private int slot(int i) {
+        int slot = first + i;
+        return slot < dates.length ? slot : slot - dates.length;
+    }
+
+    public EloRating getRating(int i) {
+        return new EloRating(getRatingDate(i), getRatingValue(i));
+    }
+
+    /**
+     * @param i Position of the rating in the history.
+     * @return Date of the rating, in milliseconds since the epoch.
+     */
+    public long getRatingDate(int i) {
+        checkIndex(i);
+        return dates[slot(i)];
+    }
+
+    public double getRatingValue(int i) {
+        checkIndex(i);
+        return ratings[slot(i)];
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
 
-        if (lastIndex < 0) {
+    public EloRating getLastRating() {
+        if (size == 0) {
             return new EloRating();
         }
         
-        return ratings.get(lastIndex);
+        return getRating(size - 1);
+    }
+
+    /**
+     * Same as getLastRating().getRating(), without creating the EloRating.
+     * 
+     * @return The last rating, or the initial rating if the team has none.
+     */
+    public double getCurrentRating() {
+        return size == 0 ? EloRating.INITIAL_RATING : ratings[slot(size - 1)];
     }
 
     public void addRating(EloRating rating) {
-        this.ratings.add(rating);
+        addRating(rating.getDate(), rating.getRating());
+    }
+
+    /**
+     * @param date Date of the rating, in milliseconds since the epoch.
+     * @param rating The new rating.
+     */
+    public void addRating(long date, double rating) {
+        if (historyLimit > 0 && size == historyLimit) {
+            //Overwrites the oldest rating
+            dates[first] = date;
+            ratings[first] = rating;
+            first = slot(1);
+            dropped++;
+            return;
+        }
+
+        if (size == dates.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            dates = Arrays.copyOf(dates, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+        }
+
+        dates[slot(size)] = date;
+        ratings[slot(size)] = rating;
+        size++;
+    }
+
+    /**
+     * Removes the ratings after a given date, e.g. before replaying the matches from then on.
+     * The ratings must be in chronological order.
+     * 
+     * @param time The date, in milliseconds since the epoch. Ratings on that instant are kept.
+     */
+    public void removeRatingsAfter(long time) {
+        size = getIndexAfter(time);
+    }
+
+    /**
+     * Rating of the team at the end of a given date, 
+     * i.e. after all of its matches up to and including that date.
+     * The ratings must be in chronological order, as the calculator adds them.
+     * If the history is limited, the date must be covered by the ratings kept.
+     * 
+     * @param date The date.
+     * @return The rating, or the initial rating if the team hadn't played yet.
+     */
+    public double getRatingAt(Date date) {
+        return getRatingAt(date.getTime());
+    }
+
+    /**
+     * @param time The date, in milliseconds since the epoch. Only its day matters.
+     * @return The rating at the end of that date.
+     * @see #getRatingAt(Date)
+     */
+    public double getRatingAt(long time) {
+        return getRatingBeforeIndex(getIndexAfter(Dates.getEndOfDay(time)));
+    }
+
+    /**
+     * Rating of the team right before a given date, e.g. when a match was about to be played.
+     * 
+     * @param date The date.
+     * @return The rating, or the initial rating if the team hadn't played yet.
+     */
+    public double getRatingBefore(Date date) {
+        return getRatingBefore(date.getTime());
+    }
+
+    /**
+     * @param time The date, in milliseconds since the epoch.
+     * @return The rating right before that date.
+     * @see #getRatingBefore(Date)
+     */
+    public double getRatingBefore(long time) {
+        return getRatingBeforeIndex(getIndexAfter(time - 1));
+    }
+
+    private double getRatingBeforeIndex(int index) {
+        if (index > 0) {
+            return ratings[slot(index - 1)];
+        }
+
+        if (dropped > 0) {
+            throw new IllegalArgumentException("The rating at that date is no longer kept.");
+        }
+
+        return EloRating.INITIAL_RATING;
+    }
+
+    //Position of the first rating after the given time
+    private int getIndexAfter(long time) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (dates[slot(middle)] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
     }
     
     public String getCleanName() {
@@ -87,10 +365,10 @@ public class Team implements Comparable<Team> {
         sb.append("rating");
         sb.append(System.lineSeparator());
         
-        for (EloRating elo : ratings) {
-            sb.append(elo.getDateAsString());
+        for (int i = 0; i < size; i++) {
+            sb.append(getRating(i).getDateAsString());
             sb.append(separator);
-            sb.append((int) elo.getRating());
+            sb.append((int) getRatingValue(i));
             sb.append(System.lineSeparator());
         }
         
@@ -102,9 +380,52 @@ public class Team implements Comparable<Team> {
         writer.close();
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Team)) {
+            return false;
+        }
+
+        Team other = (Team) o;
+        if (name == null ? other.name != null : !name.equals(other.name)) {
+            return false;
+        }
+        if (size != other.size) {
+            return false;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (dates[slot(i)] != other.dates[other.slot(i)] 
+                    || Double.compare(ratings[slot(i)], other.ratings[other.slot(i)]) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name == null ? 43 : name.hashCode();
+
+        for (int i = 0; i < size; i++) {
+            result = 59 * result + Long.hashCode(dates[slot(i)]);
+            result = 59 * result + Double.hashCode(ratings[slot(i)]);
+        }
+
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Team(name=" + name + ", ratings=" + getRatings() + ")";
+    }
+
     @Override
     public int compareTo(Team o) {
-        return Double.compare(this.getLastRating().getRating(), 
-                o.getLastRating().getRating());
+        return Double.compare(this.getCurrentRating(), o.getCurrentRating());
     }
 }
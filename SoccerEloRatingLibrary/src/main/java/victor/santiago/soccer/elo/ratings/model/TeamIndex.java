@@ -0,0 +1,89 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gives each team name a sequential int id, so ratings and other per-team
+ * values can be kept in plain arrays instead of maps.
+ *
+ * @author Victor Santiago
+ */
+public class TeamIndex {
+
+    private final Map<String, Integer> ids;
+    private final List<String> names;
+
+    public TeamIndex() {
+        ids = new HashMap<>();
+        names = new ArrayList<>();
+    }
+
+    /**
+     * @param name The team name.
+     * @return The id of the team, creating one if it's the first time it's seen.
+     */
+    public int intern(String name) {
+        Integer id = ids.get(name);
+
+        if (id != null) {
+            return id;
+        }
+
+        id = names.size();
+        ids.put(name, id);
+        names.add(name);
+
+        return id;
+    }
+
+    /**
+     * @param name The team name.
+     * @return The id of the team, or -1 if it was never interned.
+     */
+    public int getId(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String getName(int id) {
+        return names.get(id);
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public boolean contains(String name) {
+        return ids.containsKey(name);
+    }
+
+    public int size() {
+        return names.size();
+    }
+}
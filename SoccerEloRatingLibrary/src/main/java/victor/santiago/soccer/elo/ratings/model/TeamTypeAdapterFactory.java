@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Keeps the JSON of a {@link Team} as a name and a list of ratings, 
+ * the same as before the history was stored in columns. 
+ * The ratings use the Gson instance's own settings, e.g. its date format.
+ *
+ * @author Victor Santiago
+ */
+public class TeamTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (!Team.class.isAssignableFrom(type.getRawType())) {
+            return null;
+        }
+
+        return (TypeAdapter<T>) new TeamTypeAdapter(gson.getAdapter(EloRating.class));
+    }
+
+    private static class TeamTypeAdapter extends TypeAdapter<Team> {
+
+        private final TypeAdapter<EloRating> ratingAdapter;
+
+        TeamTypeAdapter(TypeAdapter<EloRating> ratingAdapter) {
+            this.ratingAdapter = ratingAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, Team team) throws IOException {
+            if (team == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("name").value(team.getName());
+            out.name("ratings").beginArray();
+            for (int i = 0; i < team.getRatingCount(); i++) {
+                ratingAdapter.write(out, team.getRating(i));
+            }
+            out.endArray();
+            out.endObject();
+        }
+
+        @Override
+        public Team read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            Team team = new Team(null);
+
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+
+                if ("name".equals(field) && in.peek() != JsonToken.NULL) {
+                    team.setName(in.nextString());
+                } else if ("ratings".equals(field) && in.peek() != JsonToken.NULL) {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        team.addRating(ratingAdapter.read(in));
+                    }
+                    in.endArray();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+
+            return team;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import java.util.Random;
+
+/**
+ * The original way of simulating a match: an int between 0 and 100 is drawn, below the 
+ * winning probability of the home team minus the tie margin it's a home win, up to the 
+ * probability plus the margin it's a tie, and above that it's an away win. 
+ * Every win is by one goal.
+ *
+ * @author Victor Santiago
+ */
+public final class TieMarginModel implements OutcomeModel {
+
+    public static final TieMarginModel INSTANCE = new TieMarginModel();
+
+    //Number of ints drawn from, 0 to 100
+    public static final int RANGE = 101;
+
+    private static final int HOME_WIN = OutcomeModel.getScoreline(1, 0);
+    private static final int TIE = OutcomeModel.getScoreline(0, 0);
+    private static final int AWAY_WIN = OutcomeModel.getScoreline(0, 1);
+
+    private TieMarginModel() { }
+
+    @Override
+    public int getParameterCount() {
+        return 2;
+    }
+
+    @Override
+    public void prepare(double homeProbability, int tieMargin, double[] parameters, int offset) {
+        parameters[offset] = homeProbability - tieMargin;
+        parameters[offset + 1] = homeProbability + tieMargin;
+    }
+
+    @Override
+    public int draw(double[] parameters, int offset, Random random) {
+        int winningRange = random.nextInt(RANGE);
+
+        if (winningRange < parameters[offset]) {
+            return HOME_WIN;
+        } else if (winningRange <= parameters[offset + 1]) {
+            return TIE;
+        }
+        return AWAY_WIN;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import victor.santiago.soccer.elo.ratings.model.League;
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.SimulatedLeague;
+import victor.santiago.soccer.elo.ratings.model.Team;
+
+/**
+ * Random but reproducible leagues for the tests.
+ *
+ * @author Victor Santiago
+ */
+public final class TestLeagues {
+
+    public static final long DAY = 24L * 60 * 60 * 1000;
+
+    private TestLeagues() { }
+
+    public static String getTeamName(int team) {
+        return "Team " + team;
+    }
+
+    /**
+     * @param matches Number of matches, one per day.
+     * @param teams Number of teams, of all the competitions.
+     * @param competitions Number of competitions with no teams in common,
+     *                     team t plays in competition t % competitions.
+     * @param seed Seed of the generator.
+     * @return The matches, sorted by date, some of them with a custom K.
+     */
+    public static ArrayList<Match> getMatches(int matches, int teams, int competitions, long seed) {
+        Random random = new Random(seed);
+        ArrayList<Match> result = new ArrayList<>(matches);
+
+        for (int i = 0; i < matches; i++) {
+            int competition = i % competitions;
+            int size = (teams - competition + competitions - 1) / competitions;
+
+            int home = random.nextInt(size);
+            int away = random.nextInt(size - 1);
+            if (away >= home) {
+                away++;
+            }
+
+            Match m = getMatch(home * competitions + competition, away * competitions + competition,
+                    i * DAY, random);
+            if (random.nextInt(10) == 0) {
+                m.setCustomK(40);
+            }
+            result.add(m);
+        }
+
+        return result;
+    }
+
+    /**
+     * @param seasons Number of seasons, each one a double round-robin.
+     * @param teams Number of teams.
+     * @param seed Seed of the generator.
+     * @return One league per season.
+     */
+    public static ArrayList<League> getLeagues(int seasons, int teams, long seed) {
+        Random random = new Random(seed);
+        ArrayList<League> leagues = new ArrayList<>();
+
+        long date = 0;
+        for (int season = 0; season < seasons; season++) {
+            List<Match> matches = new ArrayList<>();
+
+            for (int home = 0; home < teams; home++) {
+                for (int away = 0; away < teams; away++) {
+                    if (home != away) {
+                        matches.add(getMatch(home, away, date, random));
+                        date += DAY;
+                    }
+                }
+            }
+
+            leagues.add(League.builder()
+                    .name("Test League")
+                    .year(2000 + season)
+                    .matches(matches)
+                    .build());
+        }
+
+        return leagues;
+    }
+
+    /**
+     * @param teams Number of teams, all of them already rated.
+     * @param seed Seed of the generator.
+     * @return A double round-robin league where every match is still to be played.
+     */
+    public static SimulatedLeague getSimulatedLeague(int teams, long seed) {
+        Random random = new Random(seed);
+        Map<String, Team> ratings = new HashMap<>();
+
+        for (int i = 0; i < teams; i++) {
+            Team t = new Team(getTeamName(i));
+            t.addRating(0, 1300 + random.nextInt(400));
+            ratings.put(t.getName(), t);
+        }
+
+        SimulatedLeague league = new SimulatedLeague(ratings);
+        long date = 0;
+        for (int home = 0; home < teams; home++) {
+            for (int away = 0; away < teams; away++) {
+                if (home != away) {
+                    league.addMatch(Match.builder()
+                            .home(getTeamName(home))
+                            .away(getTeamName(away))
+                            .homeGoals(-1)
+                            .awayGoals(-1)
+                            .date(date += DAY)
+                            .build());
+                }
+            }
+        }
+
+        return league;
+    }
+
+    private static Match getMatch(int home, int away, long date, Random random) {
+        return Match.builder()
+                .home(getTeamName(home))
+                .away(getTeamName(away))
+                .homeGoals(random.nextInt(4) + (home < away ? 1 : 0))
+                .awayGoals(random.nextInt(3))
+                .date(date)
+                .build();
+    }
+}
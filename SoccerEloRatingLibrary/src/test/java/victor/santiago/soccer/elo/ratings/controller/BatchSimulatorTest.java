@@ -0,0 +1,94 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+
+/**
+ * @author Victor Santiago
+ */
+public class BatchSimulatorTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void leaguesGetTheSameStatisticsAsSimulatedAlone() throws Exception {
+        List<Simulator> simulators = Arrays.asList(SimulatorTest.getSimulator(false), 
+                new Simulator(TestLeagues.getSimulatedLeague(12, 23), true, false));
+        List<Integer> runs = Arrays.asList(2000, 1100);
+
+        //Chunks that don't divide the runs, so the last one of each league is shorter
+        BatchSimulator batch = new BatchSimulator(pool, 300);
+        List<CompletableFuture<Statistics>> results = batch.simulate(simulators, runs, 42);
+
+        for (int i = 0; i < simulators.size(); i++) {
+            Statistics expected = simulators.get(i).simulate(runs.get(i), new Statistics(), 42);
+            SimulatorTest.assertSamePositions(expected, results.get(i).get());
+        }
+    }
+
+    @Test
+    public void addingRunsDoesNotRepeatThem() throws Exception {
+        Simulator simulator = SimulatorTest.getSimulator(false);
+        Statistics expected = simulator.simulate(2000, new Statistics(), 42);
+
+        Statistics statistics = simulator.simulate(700, new Statistics(), 42);
+        BatchSimulator batch = new BatchSimulator(pool, 500);
+        List<CompletableFuture<Statistics>> results = batch.simulate(Arrays.asList(simulator), 
+                Arrays.asList(1300), 42, Arrays.asList(statistics));
+
+        SimulatorTest.assertSamePositions(expected, results.get(0).get());
+    }
+
+    @Test
+    public void leaguesWithNoRunsAreCompletedRightAway() {
+        CompletableFuture<Statistics> result = new BatchSimulator(pool, 100)
+                .simulate(SimulatorTest.getSimulator(false), 0, 42);
+
+        assertTrue(result.isDone());
+        assertEquals(0, result.join().getSimulations());
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.helper.EloHelper;
+import victor.santiago.soccer.elo.ratings.helper.IncrementalRatings;
+import victor.santiago.soccer.elo.ratings.model.EloRating;
+import victor.santiago.soccer.elo.ratings.model.League;
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.Team;
+
+/**
+ * @author Victor Santiago
+ */
+public class EloCalculatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void jsonFileGivesTheSameRatingsAsTheLeagues() throws IOException {
+        String path = writeLeagues(TestLeagues.getLeagues(3, 10, 10));
+
+        EloCalculator expected = getCalculator();
+        expected.addLeaguesFromJsonFile(path);
+        expected.calculateRatings();
+
+        for (int bufferSize : new int[] {1, 7, 90, 1000}) {
+            EloCalculator calculator = getCalculator();
+            calculator.calculateRatingsFromJsonFile(path, bufferSize);
+
+            assertEquals(new ArrayList<>(expected.getTeams().entrySet()),
+                    new ArrayList<>(calculator.getTeams().entrySet()));
+        }
+    }
+
+    @Test
+    public void jsonFileOutOfOrderIsRejected() throws IOException {
+        ArrayList<League> leagues = TestLeagues.getLeagues(2, 10, 11);
+        Collections.reverse(leagues);
+        String path = writeLeagues(leagues);
+
+        try {
+            getCalculator().calculateRatingsFromJsonFile(path, 7);
+            fail("Replayed a file out of order");
+        } catch (IllegalArgumentException expected) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void incrementalRatingsUpdateTheTeams() {
+        ArrayList<League> leagues = TestLeagues.getLeagues(2, 8, 12);
+
+        EloCalculator expected = getCalculator();
+        leagues.forEach(expected::addLeague);
+        EloCalculator calculator = getCalculator();
+        leagues.forEach(calculator::addLeague);
+
+        List<Match> matches = expected.getMatches(true);
+        expected.calculateRatings();
+        calculator.calculateRatingsIncrementally();
+
+        assertEquals(expected.getTeams(), calculator.getTeams());
+        assertEquals(expected.getRatingsAt(new Date(matches.get(20).getDate())), 
+                calculator.getRatingsAt(new Date(matches.get(20).getDate())));
+        assertEquals(expected.getWinProbability(matches.get(0)), 
+                calculator.getWinProbability(matches.get(0)), 0);
+    }
+
+    @Test
+    public void matchesOutOfOrderUpdateTheTeams() {
+        ArrayList<League> leagues = TestLeagues.getLeagues(2, 8, 13);
+
+        EloCalculator expected = getCalculator();
+        leagues.forEach(expected::addLeague);
+        List<Match> matches = expected.getMatches(true);
+        expected.calculateRatings();
+
+        EloCalculator calculator = getCalculator();
+        calculator.addMatches(matches.subList(0, 40));
+        calculator.addMatches(matches.subList(60, matches.size()));
+        for (Match m : matches.subList(40, 60)) {
+            calculator.addMatch(m);
+        }
+
+        for (Team t : expected.getTeams().values()) {
+            assertEquals(t.getCurrentRating(), calculator.getTeam(t.getName()).getCurrentRating(), 0);
+            assertEquals(t.getLastRating().getDate(), calculator.getTeam(t.getName()).getLastRating().getDate());
+        }
+        assertEquals(expected.getWinProbability(matches.get(0)), 
+                calculator.getWinProbability(matches.get(0)), 0);
+    }
+
+    @Test
+    public void matchesOutOfOrderRewriteTheHistory() {
+        ArrayList<League> leagues = TestLeagues.getLeagues(2, 8, 17);
+
+        EloCalculator expected = getCalculator();
+        leagues.forEach(expected::addLeague);
+        List<Match> matches = expected.getMatches(true);
+        expected.calculateRatings();
+
+        EloCalculator calculator = getCalculator();
+        for (Match m : matches) {
+            if (m != matches.get(30)) {
+                calculator.addMatch(m);
+            }
+        }
+        assertFalse(calculator.addMatch(matches.get(30)));
+
+        assertEquals(expected.getTeams(), calculator.getTeams());
+        for (Match m : matches) {
+            Date date = new Date(m.getDate());
+
+            assertEquals(expected.getRatingAt(m.getHome(), date), calculator.getRatingAt(m.getHome(), date), 0);
+            assertEquals(expected.getRatingAt(m.getAway(), date), calculator.getRatingAt(m.getAway(), date), 0);
+        }
+    }
+
+    @Test
+    public void changingTheHelperStartsTheIncrementalRatingsOver() {
+        EloCalculator calculator = getCalculator();
+        IncrementalRatings incremental = calculator.getIncrementalRatings();
+
+        calculator.setHistoryLimit(10);
+        assertNotSame(incremental, calculator.getIncrementalRatings());
+
+        incremental = calculator.getIncrementalRatings();
+        calculator.getEHelper().setK(30);
+        assertNotSame(incremental, calculator.getIncrementalRatings());
+    }
+
+    @Test
+    public void ratingAtIsTheRatingAtTheEndOfTheDay() {
+        LocalDate day = LocalDate.of(2016, 12, 11);
+        EloCalculator calculator = getCalculator();
+        calculator.addLeague(League.builder()
+                .name("Test League")
+                .year(2016)
+                .matches(Collections.singletonList(Match.builder()
+                        .home("A")
+                        .away("B")
+                        .homeGoals(2)
+                        .awayGoals(0)
+                        .date(getTime(day.atTime(21, 0)))
+                        .build()))
+                .build());
+        calculator.calculateRatings();
+
+        double rating = calculator.getTeam("A").getCurrentRating();
+        assertNotEquals(EloRating.INITIAL_RATING, rating, 0);
+
+        assertEquals(EloRating.INITIAL_RATING, 
+                calculator.getRatingAt("A", new Date(getTime(day.minusDays(1).atTime(23, 59)))), 0);
+        assertEquals(rating, calculator.getRatingAt("A", new Date(getTime(day.atStartOfDay()))), 0);
+        assertEquals(rating, calculator.getRatingsAt(new Date(getTime(day.atTime(12, 0)))).get("A"), 0);
+    }
+
+    @Test
+    public void calculateRatingsRegressesAfterEachLeague() {
+        ArrayList<League> leagues = TestLeagues.getLeagues(3, 8, 19);
+
+        EloHelper expected = new EloHelper();
+        expected.updateRatings(leagues);
+
+        EloCalculator calculator = EloCalculator.builder()
+                .leagues(new ArrayList<>(leagues))
+                .eHelper(new EloHelper())
+                .build();
+        calculator.calculateRatings();
+
+        assertEquals(expected.getTeams(), calculator.getTeams());
+    }
+
+    //The JSON, match store and incremental ratings don't regress, so neither do the leagues
+    static EloCalculator getCalculator() {
+        EloCalculator calculator = EloCalculator.builder()
+                .leagues(new ArrayList<>())
+                .eHelper(new EloHelper())
+                .build();
+        calculator.setRegressTowardMean(false);
+
+        return calculator;
+    }
+
+    private static long getTime(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private String writeLeagues(List<League> leagues) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), new Gson().toJson(leagues).getBytes(StandardCharsets.UTF_8));
+
+        return file.getPath();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.controller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.model.SimulatedLeague;
+
+/**
+ * @author Victor Santiago
+ */
+public class SimulatorTest {
+
+    private static final int TEAMS = 12;
+    private static final int RUNS = 2000;
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void sameSeedGivesTheSameStatisticsWithAnyNumberOfWorkers() {
+        for (boolean updateRatings : new boolean[] {false, true}) {
+            Simulator simulator = getSimulator(updateRatings);
+            Statistics expected = simulator.simulate(RUNS, new Statistics(), 42);
+
+            for (int workers = 1; workers <= 5; workers++) {
+                Statistics statistics = simulator.simulate(RUNS, workers, 42, pool);
+                assertSamePositions(expected, statistics);
+            }
+        }
+    }
+
+    @Test
+    public void addingRunsDoesNotRepeatThem() {
+        Simulator simulator = getSimulator(false);
+        Statistics expected = simulator.simulate(RUNS, new Statistics(), 42);
+
+        Statistics serial = simulator.simulate(RUNS / 2, new Statistics(), 42);
+        simulator.simulate(RUNS / 2, serial, 42);
+        assertSamePositions(expected, serial);
+
+        Statistics parallel = simulator.simulate(RUNS / 4, 3, 42, pool);
+        simulator.simulate(RUNS - RUNS / 4, 3, 42, pool, parallel);
+        assertSamePositions(expected, parallel);
+    }
+
+    @Test
+    public void partialRankingGivesTheSameZones() {
+        Simulator simulator = getSimulator(false);
+
+        Statistics full = new Statistics(2, 3);
+        full.addZone("Europe", 2, 5);
+        full.setAllPositions(true);
+        simulator.simulate(RUNS, 3, 7, pool, full);
+
+        Statistics partial = new Statistics(2, 3);
+        partial.addZone("Europe", 2, 5);
+        simulator.simulate(RUNS, 3, 7, pool, partial);
+
+        for (int t = 0; t < TEAMS; t++) {
+            String team = TestLeagues.getTeamName(t);
+
+            assertEquals(full.getChampionshipProbability(team), 
+                    partial.getChampionshipProbability(team), 0);
+            assertEquals(full.getTopProbability(team), partial.getTopProbability(team), 0);
+            assertEquals(full.getBottomProbability(team), partial.getBottomProbability(team), 0);
+            assertEquals(full.getZoneProbability(team, "Europe"), 
+                    partial.getZoneProbability(team, "Europe"), 0);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void deprecatedCountsAgreeWithTheProbabilities() {
+        Statistics statistics = getSimulator(false).simulate(RUNS, new Statistics(), 3);
+
+        for (int t = 0; t < TEAMS; t++) {
+            String team = TestLeagues.getTeamName(t);
+
+            assertEquals(statistics.getChampionshipProbability(team), 
+                    getProbability(statistics.getChampion().get(team)), 1e-9);
+            assertEquals(statistics.getTop4Probability(team), 
+                    getProbability(statistics.getTop4().get(team)), 1e-9);
+            assertEquals(statistics.getBottom4Probability(team), 
+                    getProbability(statistics.getBottom4().get(team)), 1e-9);
+        }
+    }
+
+    private static double getProbability(Integer count) {
+        return count == null ? 0 : count * 100.0 / RUNS;
+    }
+
+    static Simulator getSimulator(boolean updateRatings) {
+        SimulatedLeague league = TestLeagues.getSimulatedLeague(TEAMS, 11);
+        return new Simulator(league, updateRatings, false);
+    }
+
+    static void assertSamePositions(Statistics expected, Statistics actual) {
+        assertEquals(expected.getSimulations(), actual.getSimulations());
+
+        for (int t = 0; t < TEAMS; t++) {
+            String team = TestLeagues.getTeamName(t);
+            assertArrayEquals(team, expected.getPositionDistribution(team), 
+                    actual.getPositionDistribution(team), 0);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.controller.EloCalculator;
+import victor.santiago.soccer.elo.ratings.model.League;
+
+/**
+ * @author Victor Santiago
+ */
+public class CalibratorTest {
+
+    @Test
+    public void scoresAreTheSameAsTheHelperReplay() {
+        //Added out of order, the matches are still replayed by date
+        ArrayList<League> leagues = TestLeagues.getLeagues(4, 10, 14);
+        Collections.reverse(leagues);
+        Calibrator calibrator = new Calibrator(leagues);
+
+        for (Calibrator.Parameters parameters : new Calibrator.Parameters[] {
+                new Calibrator.Parameters(), new Calibrator.Parameters(35, 2, 60, 0.5)}) {
+            for (boolean regress : new boolean[] {true, false}) {
+                PredictionMetrics metrics = new PredictionMetrics();
+                EloHelper helper = new EloHelper();
+                helper.setK(parameters.getK());
+                helper.setRegressionDivisor(parameters.getRegressionDivisor());
+                helper.setHomeAdvantage(parameters.getHomeAdvantage());
+                helper.setGoalDifferenceWeight(parameters.getGoalDifferenceWeight());
+                helper.setRegressTowardMean(regress);
+                helper.setMetrics(metrics);
+                helper.updateRatingsInDateOrder(leagues);
+
+                calibrator.setRegressTowardMean(regress);
+                assertEquals(metrics.getScores().getBrierScore(), 
+                        calibrator.evaluate(parameters, Calibrator.Score.BRIER).getScore(), 1e-12);
+                assertEquals(metrics.getScores().getLogLoss(), 
+                        calibrator.evaluate(parameters, Calibrator.Score.LOG_LOSS).getScore(), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void bestParametersGiveTheCalculatorTheBestScore() {
+        EloCalculator calculator = EloCalculator.builder()
+                .leagues(TestLeagues.getLeagues(3, 10, 16))
+                .eHelper(new EloHelper())
+                .build();
+
+        List<Calibrator.Result> results = calculator.getCalibrator().calibrate(getGrid(), 
+                Calibrator.Score.BRIER);
+        Calibrator.Result best = results.get(0);
+        assertNotEquals(new Calibrator.Parameters(), best.getParameters());
+
+        PredictionMetrics metrics = new PredictionMetrics();
+        calculator.setParameters(best.getParameters());
+        calculator.setPredictionMetrics(metrics);
+        calculator.calculateRatings();
+
+        assertEquals(best.getParameters(), calculator.getParameters());
+        assertEquals(best.getScore(), metrics.getScores().getBrierScore(), 1e-12);
+    }
+
+    @Test
+    public void workersDontChangeTheResults() {
+        Calibrator calibrator = new Calibrator(TestLeagues.getLeagues(3, 10, 15));
+        calibrator.setWarmUp(50);
+        List<Calibrator.Parameters> grid = getGrid();
+
+        List<Calibrator.Result> expected = calibrator.calibrate(grid, Calibrator.Score.BRIER, 1, 
+                ForkJoinPool.commonPool());
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            assertEquals(expected, calibrator.calibrate(grid, Calibrator.Score.BRIER, 3, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static List<Calibrator.Parameters> getGrid() {
+        return Calibrator.getGrid(new double[] {10, 20, 30}, new double[] {2, 3}, 
+                new double[] {0, 50}, new double[] {0, 1});
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Dates must give the same values as SimpleDateFormat and Calendar, 
+ * in a time zone with daylight saving time.
+ *
+ * @author Victor Santiago
+ */
+public class DatesTest {
+
+    private static final long HOUR = 60 * 60 * 1000L;
+
+    private TimeZone defaultZone;
+
+    @Before
+    public void useDaylightSavingTime() {
+        defaultZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+    }
+
+    @After
+    public void restoreTimeZone() {
+        TimeZone.setDefault(defaultZone);
+    }
+
+    @Test
+    public void parseIsTheSameAsSimpleDateFormat() throws ParseException {
+        String[] dates = {
+            "Dec 11, 2016 12:00:00 AM",
+            "Dec 11, 2016 00:00:00 AM",
+            "Dec 11, 2016 21:30:15 PM",
+            "dec 1, 2016 9:05:00 am",
+            "September 03, 2016 10:00:00 AM",
+            //The clocks go forward, the time doesn't exist
+            "Mar 12, 2017 02:30:00 AM",
+            //The clocks go back, the time happens twice
+            "Nov 05, 2017 01:30:00 AM",
+            //Out of range, SimpleDateFormat is lenient
+            "Feb 30, 2016 10:00:00 AM",
+            //Trailing text, only SimpleDateFormat takes it
+            "Dec 11, 2016 12:00:00 AM EST"
+        };
+
+        for (String date : dates) {
+            assertEquals(date, getFormat(Dates.JSON_PATTERN).parse(date).getTime(), Dates.parse(date));
+        }
+    }
+
+    @Test(expected = ParseException.class)
+    public void somethingElseIsRejected() throws ParseException {
+        Dates.parse("11/12/2016");
+    }
+
+    @Test
+    public void formatIsTheSameAsSimpleDateFormat() throws ParseException {
+        long date = Dates.parse("Mar 12, 2017 00:00:00 AM");
+
+        for (int hour = 0; hour < 48; hour++) {
+            Date d = new Date(date + hour * HOUR);
+
+            assertEquals(getFormat(Dates.JSON_PATTERN).format(d), Dates.format(d.getTime()));
+            assertEquals(getFormat("d-MMM-yyyy").format(d), Dates.formatDay(d.getTime()));
+            assertEquals(getFormat("dd/MM/yyyy").format(d), Dates.formatShort(d.getTime()));
+            assertEquals(d.getTime(), Dates.parse(Dates.format(d.getTime())));
+        }
+    }
+
+    @Test
+    public void addOneDayIsTheSameAsCalendar() throws ParseException {
+        for (String day : new String[] {"Mar 11, 2017 00:00:00 AM", "Nov 04, 2017 00:00:00 AM"}) {
+            long date = Dates.parse(day);
+
+            //Every 15 minutes of the days around the change
+            for (int quarter = 0; quarter < 3 * 24 * 4; quarter++) {
+                long time = date + quarter * HOUR / 4;
+
+                Calendar c = Calendar.getInstance();
+                c.setTimeInMillis(time);
+                c.add(Calendar.DATE, 1);
+                assertEquals(Dates.format(time), c.getTimeInMillis(), Dates.addOneDay(time));
+            }
+        }
+    }
+
+    @Test
+    public void endOfDayIsTheLastMillisecondOfTheLocalDay() throws ParseException {
+        //23 and 25 hours long
+        for (String day : new String[] {"Mar 12, 2017", "Nov 05, 2017", "Dec 11, 2016"}) {
+            long start = Dates.parse(day + " 00:00:00 AM");
+            long end = Dates.getEndOfDay(start + 10 * HOUR);
+
+            Calendar c = Calendar.getInstance();
+            c.setTimeInMillis(start);
+            c.add(Calendar.DATE, 1);
+            assertEquals(day, c.getTimeInMillis() - 1, end);
+            assertEquals(day, Dates.formatDay(start), Dates.formatDay(end));
+        }
+    }
+
+    @Test
+    public void yearIsTheLocalOne() throws ParseException {
+        assertEquals(2016, Dates.getYear(Dates.parse("Dec 31, 2016 23:30:00 PM")));
+        assertEquals(2017, Dates.getYear(Dates.parse("Jan 01, 2017 00:30:00 AM")));
+    }
+
+    private static SimpleDateFormat getFormat(String pattern) {
+        return new SimpleDateFormat(pattern, Locale.US);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.Team;
+
+/**
+ * @author Victor Santiago
+ */
+public class EloHelperTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void parallelReplayIsTheSameAsTheSequentialOne() {
+        for (int competitions : new int[] {1, 3, 16}) {
+            ArrayList<Match> matches = TestLeagues.getMatches(6000, 48, competitions, competitions);
+
+            for (int workers = 1; workers <= 5; workers++) {
+                EloHelper sequential = getHelper();
+                sequential.updateRatingsWithMatches(matches);
+
+                EloHelper parallel = getHelper();
+                parallel.updateRatingsWithMatches(matches, workers, pool);
+
+                //Same teams and histories, added to the map in the same order
+                assertEquals(new ArrayList<>(sequential.getTeams().entrySet()),
+                        new ArrayList<>(parallel.getTeams().entrySet()));
+            }
+        }
+    }
+
+    @Test
+    public void parallelReplayWithCrossCompetitionMatches() {
+        ArrayList<Match> matches = TestLeagues.getMatches(6000, 48, 8, 4);
+        matches.set(3000, Match.builder()
+                .home(TestLeagues.getTeamName(0))
+                .away(TestLeagues.getTeamName(1))
+                .homeGoals(2)
+                .awayGoals(1)
+                .date(matches.get(3000).getDate())
+                .build());
+
+        EloHelper sequential = getHelper();
+        sequential.updateRatingsWithMatches(matches);
+
+        EloHelper parallel = getHelper();
+        parallel.updateRatingsWithMatches(matches, 4, pool);
+
+        assertEquals(new ArrayList<>(sequential.getTeams().entrySet()),
+                new ArrayList<>(parallel.getTeams().entrySet()));
+    }
+
+    @Test
+    public void historyLimitKeepsTheSameCurrentRatings() {
+        ArrayList<Match> matches = TestLeagues.getMatches(2000, 20, 1, 5);
+
+        EloHelper full = getHelper();
+        full.updateRatingsWithMatches(matches);
+
+        EloHelper limited = getHelper();
+        limited.setHistoryLimit(1);
+        limited.updateRatingsWithMatches(matches);
+
+        assertEquals(full.getTeams().keySet(), limited.getTeams().keySet());
+        for (Team t : full.getTeams().values()) {
+            Team kept = limited.getTeam(t.getName());
+
+            assertEquals(1, kept.getRatingCount());
+            assertEquals(t.getRatingCount() - 1, kept.getDroppedRatingCount());
+            assertEquals(t.getLastRating(), kept.getLastRating());
+        }
+    }
+
+    /**
+     * A helper with a team that is already rated.
+     */
+    private static EloHelper getHelper() {
+        EloHelper helper = new EloHelper();
+        Team rated = new Team(TestLeagues.getTeamName(3));
+        rated.addRating(0, 1600);
+        helper.setTeam(rated);
+
+        return helper;
+    }
+}
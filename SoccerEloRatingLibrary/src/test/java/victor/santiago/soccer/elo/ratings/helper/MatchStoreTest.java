@@ -0,0 +1,149 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.model.Match;
+
+/**
+ * @author Victor Santiago
+ */
+public class MatchStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsWhatWasWritten() throws IOException {
+        ArrayList<Match> matches = TestLeagues.getMatches(1000, 20, 2, 6);
+        MatchStore store = write(matches);
+
+        assertEquals(matches.size(), store.size());
+        for (int i = 0; i < matches.size(); i++) {
+            Match m = matches.get(i);
+
+            assertEquals(m.getHome(), store.getTeamName(store.getHome(i)));
+            assertEquals(m.getAway(), store.getTeamName(store.getAway(i)));
+            assertEquals(m.getHomeGoals(), store.getHomeGoals(i));
+            assertEquals(m.getAwayGoals(), store.getAwayGoals(i));
+            assertEquals(m.getDate(), store.getDate(i));
+            assertEquals(m.getCustomK(), store.getCustomK(i), 0);
+        }
+    }
+
+    @Test
+    public void replayIsTheSameAsReplayingTheMatches() throws IOException {
+        ArrayList<Match> matches = TestLeagues.getMatches(5000, 30, 1, 7);
+        MatchStore store = write(matches);
+
+        EloHelper expected = new EloHelper();
+        expected.updateRatingsWithMatches(matches);
+
+        EloHelper helper = new EloHelper();
+        helper.updateRatings(store);
+        assertEquals(new ArrayList<>(expected.getTeams().entrySet()),
+                new ArrayList<>(helper.getTeams().entrySet()));
+
+        RatingEngine engine = new RatingEngine();
+        engine.replay(store);
+        RatingEngineTest.assertSameCurrentRatings(expected.getTeams(), engine.getTeams());
+    }
+
+    @Test
+    public void keepsTheMatchesNotPlayedYet() throws IOException {
+        ArrayList<Match> matches = TestLeagues.getMatches(100, 10, 1, 8);
+        for (int i = 0; i < matches.size(); i += 3) {
+            matches.get(i).setHomeGoals(-1);
+            matches.get(i).setAwayGoals(-1);
+        }
+
+        MatchStore store = write(matches);
+
+        assertEquals(matches.size(), store.size());
+        for (int i = 0; i < matches.size(); i++) {
+            assertEquals(matches.get(i).getHomeGoals(), store.getHomeGoals(i));
+            assertEquals(matches.get(i).getAwayGoals(), store.getAwayGoals(i));
+        }
+    }
+
+    @Test
+    public void truncatedFilesAreRejected() throws IOException {
+        File file = folder.newFile();
+        MatchStore.write(TestLeagues.getMatches(10, 4, 1, 9), file.getPath());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        for (int size = 0; size < bytes.length; size++) {
+            Files.write(file.toPath(), Arrays.copyOf(bytes, size));
+
+            try {
+                MatchStore.open(file.getPath());
+                fail("Opened a match store of " + size + " bytes");
+            } catch (IOException expected) {
+                //Expected
+            }
+        }
+    }
+
+    @Test
+    public void unknownTeamsAreRejected() throws IOException {
+        File file = folder.newFile();
+        MatchStore.write(TestLeagues.getMatches(10, 4, 1, 10), file.getPath());
+        byte[] bytes = Files.readAllBytes(file.toPath());
+
+        //The records are at the end, the last one starts with the home team id
+        for (int id : new int[] {-1, 4, Integer.MAX_VALUE}) {
+            byte[] corrupt = bytes.clone();
+            ByteBuffer.wrap(corrupt).putInt(corrupt.length - 28, id);
+            Files.write(file.toPath(), corrupt);
+
+            try {
+                MatchStore.open(file.getPath());
+                fail("Opened a match store with team " + id);
+            } catch (IOException expected) {
+                //Expected
+            }
+        }
+    }
+
+    private MatchStore write(ArrayList<Match> matches) throws IOException {
+        File file = folder.newFile();
+        MatchStore.write(matches, file.getPath());
+
+        return MatchStore.open(file.getPath());
+    }
+}
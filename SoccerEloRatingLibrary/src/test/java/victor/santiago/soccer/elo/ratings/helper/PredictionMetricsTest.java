@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.model.League;
+import victor.santiago.soccer.elo.ratings.model.Match;
+
+/**
+ * @author Victor Santiago
+ */
+public class PredictionMetricsTest {
+
+    @Test
+    public void scoresOfAFewPredictions() {
+        PredictionMetrics metrics = new PredictionMetrics();
+        metrics.add("A", 2016, 0.75, 1.0);
+        metrics.add("A", 2016, 0.75, 0.0);
+        metrics.add("A", 2017, 0.40, 0.5);
+
+        PredictionMetrics.Scores scores = metrics.getScores();
+        assertEquals(3, scores.getCount());
+        assertEquals((0.0625 + 0.5625 + 0.01) / 3, scores.getBrierScore(), 1e-15);
+        double logLoss = -(Math.log(0.75) + Math.log(0.25) + 0.5 * Math.log(0.4) + 0.5 * Math.log(0.6));
+        assertEquals(logLoss / 3, scores.getLogLoss(), 1e-15);
+        //The draw doesn't count
+        assertEquals(50, scores.getAccuracy(), 0);
+
+        assertEquals(2, scores.getBucketCount(7));
+        assertEquals(0.75, scores.getBucketExpected(7), 0);
+        assertEquals(0.5, scores.getBucketResult(7), 0);
+        assertEquals(1, scores.getBucketCount(4));
+
+        assertEquals(Arrays.asList(2016, 2017), metrics.getSeasons("A"));
+        assertEquals(2, metrics.getScores("A", 2016).getCount());
+        assertEquals(0, metrics.getScores("B", 2016).getCount());
+    }
+
+    @Test
+    public void replayScoresAreTheSameAsASecondPass() {
+        ArrayList<League> leagues = TestLeagues.getLeagues(3, 10, 21);
+
+        PredictionMetrics metrics = new PredictionMetrics();
+        EloHelper helper = new EloHelper();
+        helper.setRegressTowardMean(false);
+        helper.setMetrics(metrics);
+        helper.updateRatingsInDateOrder(leagues);
+
+        //Each prediction from getWinningProbability before replaying the match
+        PredictionMetrics expected = new PredictionMetrics();
+        EloHelper replay = new EloHelper();
+        for (League l : leagues) {
+            for (Match m : l.getMatches()) {
+                double result = m.getHomeGoals() > m.getAwayGoals() ? 1.0 
+                        : m.getHomeGoals() == m.getAwayGoals() ? 0.5 : 0.0;
+                expected.add(l.getName(), l.getYear(), replay.getWinningProbability(m) / 100.00, result);
+                replay.updateRatings(m);
+            }
+        }
+
+        assertEquals(expected.getCompetitions(), metrics.getCompetitions());
+        for (String competition : expected.getCompetitions()) {
+            assertEquals(expected.getSeasons(competition), metrics.getSeasons(competition));
+
+            for (int season : expected.getSeasons(competition)) {
+                assertSameScores(expected.getScores(competition, season), 
+                        metrics.getScores(competition, season));
+            }
+        }
+    }
+
+    @Test
+    public void parallelReplayScoresTheSame() {
+        List<Match> matches = TestLeagues.getMatches(4000, 32, 4, 6);
+
+        PredictionMetrics sequential = new PredictionMetrics();
+        EloHelper helper = new EloHelper();
+        helper.setMetrics(sequential);
+        helper.updateRatingsWithMatches(new ArrayList<>(matches));
+
+        PredictionMetrics parallel = new PredictionMetrics();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            helper = new EloHelper();
+            helper.setMetrics(parallel);
+            helper.updateRatingsWithMatches(matches, 3, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertSameScores(sequential.getScores(), parallel.getScores());
+    }
+
+    private static void assertSameScores(PredictionMetrics.Scores expected, PredictionMetrics.Scores actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getBrierScore(), actual.getBrierScore(), 1e-12);
+        assertEquals(expected.getLogLoss(), actual.getLogLoss(), 1e-12);
+        assertEquals(expected.getAccuracy(), actual.getAccuracy(), 0);
+
+        for (int bucket = 0; bucket < PredictionMetrics.BUCKETS; bucket++) {
+            assertEquals(expected.getBucketCount(bucket), actual.getBucketCount(bucket));
+            assertEquals(expected.getBucketResult(bucket), actual.getBucketResult(bucket), 1e-12);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.Test;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.model.League;
+import victor.santiago.soccer.elo.ratings.model.Match;
+import victor.santiago.soccer.elo.ratings.model.Team;
+
+/**
+ * The engine must give exactly the same ratings as {@link EloHelper}.
+ *
+ * @author Victor Santiago
+ */
+public class RatingEngineTest {
+
+    @Test
+    public void replayGivesTheSameRatingsAsTheHelper() {
+        ArrayList<Match> matches = TestLeagues.getMatches(5000, 30, 1, 1);
+
+        EloHelper helper = new EloHelper();
+        helper.updateRatingsWithMatches(matches);
+
+        RatingEngine engine = new RatingEngine();
+        engine.replay(engine.compile(matches));
+
+        assertSameCurrentRatings(helper.getTeams(), engine.getTeams());
+    }
+
+    @Test
+    public void regressionGivesTheSameRatingsAsTheHelper() {
+        ArrayList<League> leagues = TestLeagues.getLeagues(5, 10, 2);
+
+        EloHelper helper = new EloHelper();
+        helper.updateRatings(leagues);
+
+        RatingEngine engine = new RatingEngine();
+        for (League l : leagues) {
+            engine.replay(engine.compile(l.getMatches()));
+            engine.regressTowardsTheMean();
+        }
+
+        assertSameCurrentRatings(helper.getTeams(), engine.getTeams());
+    }
+
+    @Test
+    public void checkpointRestoresTheRatings() {
+        ArrayList<Match> matches = TestLeagues.getMatches(2000, 20, 1, 3);
+
+        RatingEngine engine = new RatingEngine();
+        engine.replay(engine.compile(matches.subList(0, 1000)));
+        RatingEngine.Checkpoint checkpoint = engine.getCheckpoint();
+        Map<String, Team> before = engine.getTeams();
+
+        engine.replay(engine.compile(matches.subList(1000, 2000)));
+        engine.restore(checkpoint);
+
+        assertSameCurrentRatings(before, engine.getTeams());
+    }
+
+    @Test
+    public void batchProbabilitiesAreTheSameAsTheHelper() {
+        for (double homeAdvantage : new double[] {0, 60}) {
+            EloHelper helper = new EloHelper();
+            helper.setHomeAdvantage(homeAdvantage);
+            helper.updateRatingsWithMatches(TestLeagues.getMatches(3000, 20, 1, 4));
+
+            RatingEngine engine = new RatingEngine(helper);
+            int teams = engine.getIndex().size();
+            int[] home = new int[teams * teams];
+            int[] away = new int[teams * teams];
+            for (int i = 0; i < home.length; i++) {
+                home[i] = i / teams;
+                away[i] = i % teams;
+            }
+
+            double[] exact = new double[home.length];
+            double[] exp = new double[home.length];
+            double[] table = new double[home.length];
+            engine.getWinningProbabilities(home, away, exact);
+            engine.getWinningProbabilities(home, away, exp, WinningExpectancy.EXP);
+            engine.getWinningProbabilities(home, away, table, WinningExpectancy.TABLE);
+
+            for (int i = 0; i < home.length; i++) {
+                Match m = Match.builder()
+                        .home(engine.getIndex().getName(home[i]))
+                        .away(engine.getIndex().getName(away[i]))
+                        .build();
+                double expected = helper.getWinningProbability(m);
+
+                assertEquals(Double.doubleToLongBits(expected), Double.doubleToLongBits(exact[i]));
+                assertEquals(expected, exp[i], 1e-12);
+                assertEquals(expected, table[i], 5e-5);
+            }
+
+            double[] matrix = engine.getWinningProbabilityMatrix(WinningExpectancy.EXACT);
+            assertArrayEquals(exact, matrix, 0);
+        }
+    }
+
+    static void assertSameCurrentRatings(Map<String, Team> expected, Map<String, Team> actual) {
+        assertEquals(expected.keySet(), actual.keySet());
+
+        for (Team t : expected.values()) {
+            Team other = actual.get(t.getName());
+
+            assertEquals(t.getName(), t.getLastRating().getDate(), other.getLastRating().getDate());
+            assertEquals(t.getName(), Double.doubleToLongBits(t.getCurrentRating()),
+                    Double.doubleToLongBits(other.getCurrentRating()));
+        }
+    }
+}
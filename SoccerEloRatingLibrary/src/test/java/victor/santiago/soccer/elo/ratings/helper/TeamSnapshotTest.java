@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.model.Team;
+
+/**
+ * @author Victor Santiago
+ */
+public class TeamSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsWhatWasWritten() throws IOException {
+        EloHelper helper = new EloHelper();
+        helper.updateRatings(TestLeagues.getLeagues(3, 12, 5));
+        helper.setTeam(new Team("Not rated yet"));
+
+        File file = folder.newFile();
+        TeamSnapshot.write(helper.getTeams(), file.getPath());
+        Map<String, Team> read = TeamSnapshot.read(file.getPath());
+
+        assertEquals(helper.getTeams(), read);
+    }
+
+    @Test
+    public void truncatedFilesAreRejected() throws IOException {
+        byte[] bytes = getSnapshot();
+
+        for (int size = 0; size < bytes.length; size++) {
+            assertRejected(Arrays.copyOf(bytes, size));
+        }
+    }
+
+    @Test
+    public void corruptCountsAreRejected() throws IOException {
+        byte[] bytes = getSnapshot();
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        int teamCount = buffer.getInt(8);
+        int firstCount = 12;
+        for (int i = 0; i < teamCount; i++) {
+            firstCount += 4 + buffer.getInt(firstCount);
+        }
+
+        for (int offset : new int[] {8, 12, firstCount}) {
+            for (int value : new int[] {-1, Integer.MAX_VALUE}) {
+                byte[] corrupt = bytes.clone();
+                ByteBuffer.wrap(corrupt).putInt(offset, value);
+                assertRejected(corrupt);
+            }
+        }
+    }
+
+    private byte[] getSnapshot() throws IOException {
+        EloHelper helper = new EloHelper();
+        helper.updateRatings(TestLeagues.getLeagues(1, 4, 6));
+
+        File file = folder.newFile();
+        TeamSnapshot.write(helper.getTeams(), file.getPath());
+        return Files.readAllBytes(file.toPath());
+    }
+
+    private void assertRejected(byte[] bytes) throws IOException {
+        File file = folder.newFile();
+        Files.write(file.toPath(), bytes);
+
+        try {
+            TeamSnapshot.read(file.getPath());
+            fail("Read a snapshot of " + bytes.length + " bytes");
+        } catch (IOException expected) {
+            //Expected
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Victor Santiago
+ */
+public class PoissonModelTest {
+
+    private static final int DRAWS = 200000;
+
+    @Test
+    public void goalsAreSplitByTheWinningExpectancy() {
+        double[] goals = getMeanGoals(new PoissonModel(), 60);
+
+        assertEquals(2.70 * 0.60, goals[0], 0.02);
+        assertEquals(2.70 * 0.40, goals[1], 0.02);
+    }
+
+    @Test
+    public void tiesHaveThePoissonProbability() {
+        double lambda = 2.70 / 2;
+        double expected = 0;
+        double probability = Math.exp(-lambda);
+        for (int goals = 0; goals <= PoissonModel.DEFAULT_MAX_GOALS; goals++) {
+            expected += probability * probability;
+            probability *= lambda / (goals + 1);
+        }
+
+        assertEquals(expected, getMeanGoals(new PoissonModel(), 50)[2], 0.005);
+    }
+
+    @Test
+    public void sharedGoalsMakeTiesMoreLikely() {
+        double[] independent = getMeanGoals(new PoissonModel(), 55);
+        double[] shared = getMeanGoals(new PoissonModel(2.70, 0.30, 10), 55);
+
+        //Same goals per match, but more of them scored by both teams
+        assertEquals(independent[0] + independent[1], shared[0] + shared[1], 0.03);
+        assertEquals(2.10 * 0.55 + 0.30, shared[0], 0.02);
+        assertTrue(shared[2] > independent[2] + 0.01);
+    }
+
+    @Test
+    public void drawsAreCappedAtTheMaxGoals() {
+        PoissonModel model = new PoissonModel(20, 0, 3);
+        double[] parameters = new double[model.getParameterCount()];
+        model.prepare(50, 0, parameters, 0);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            int scoreline = model.draw(parameters, 0, random);
+
+            assertTrue(OutcomeModel.getHomeGoals(scoreline) <= 3);
+            assertTrue(OutcomeModel.getAwayGoals(scoreline) <= 3);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sharedGoalsAboveHalfTheAverageAreRejected() {
+        new PoissonModel(2.70, 1.50, 10);
+    }
+
+    /**
+     * @return Mean goals of the home and away teams, and the share of ties.
+     */
+    private static double[] getMeanGoals(PoissonModel model, double homeProbability) {
+        double[] parameters = new double[model.getParameterCount() + 1];
+        model.prepare(homeProbability, 0, parameters, 1);
+
+        Random random = new Random(1);
+        double[] result = new double[3];
+        for (int i = 0; i < DRAWS; i++) {
+            int scoreline = model.draw(parameters, 1, random);
+            int home = OutcomeModel.getHomeGoals(scoreline);
+            int away = OutcomeModel.getAwayGoals(scoreline);
+
+            result[0] += home;
+            result[1] += away;
+            result[2] += home == away ? 1 : 0;
+        }
+
+        for (int i = 0; i < result.length; i++) {
+            result[i] /= DRAWS;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @author Victor Santiago
+ */
+public class RankingTest {
+
+    @Test
+    public void keysAreOrderedLikeThePerformances() {
+        Random random = new Random(8);
+        List<TeamPerformance> performances = new ArrayList<>();
+        long[] keys = new long[200];
+
+        for (int id = 0; id < keys.length; id++) {
+            int wins = random.nextInt(20);
+            int ties = random.nextInt(10);
+            int goals = random.nextInt(41) - 20;
+            performances.add(new TeamPerformance("Team " + id, wins, 0, ties, 3 * wins + ties, goals));
+            keys[id] = Ranking.getKey(3 * wins + ties, wins, goals, id);
+        }
+
+        Ranking.rank(keys, keys.length, keys.length, 0);
+
+        for (int i = 1; i < keys.length; i++) {
+            TeamPerformance better = performances.get(Ranking.getId(keys[i - 1]));
+            TeamPerformance worse = performances.get(Ranking.getId(keys[i]));
+            assertTrue(better.compareTo(worse) >= 0);
+        }
+    }
+
+    @Test
+    public void keysAtTheLimitsKeepTheirOrder() {
+        long best = Ranking.getKey((1 << 19) - 1, (1 << 16) - 1, Short.MAX_VALUE, 0);
+        long worst = Ranking.getKey(0, 0, Short.MIN_VALUE, Ranking.MAX_TEAMS - 1);
+
+        assertTrue(best > Ranking.getKey((1 << 19) - 1, (1 << 16) - 1, Short.MAX_VALUE, 1));
+        assertTrue(worst < Ranking.getKey(0, 0, Short.MIN_VALUE, Ranking.MAX_TEAMS - 2));
+        assertTrue(worst < Ranking.getKey(0, 0, Short.MIN_VALUE + 1, Ranking.MAX_TEAMS - 1));
+        assertEquals(0, Ranking.getId(best));
+        assertEquals(Ranking.MAX_TEAMS - 1, Ranking.getId(worst));
+    }
+
+    @Test
+    public void valuesOutOfRangeAreRejected() {
+        int[][] values = {
+            {1 << 19, 0, 0, 0}, {-1, 0, 0, 0}, {0, 1 << 16, 0, 0}, {0, -1, 0, 0}, 
+            {0, 0, Short.MAX_VALUE + 1, 0}, {0, 0, Short.MIN_VALUE - 1, 0}, 
+            {0, 0, 0, Ranking.MAX_TEAMS}, {0, 0, 0, -1}
+        };
+
+        for (int[] v : values) {
+            try {
+                Ranking.getKey(v[0], v[1], v[2], v[3]);
+                fail("Accepted " + Arrays.toString(v));
+            } catch (IllegalArgumentException expected) {
+                //Expected
+            }
+        }
+    }
+
+    @Test
+    public void partialRankingHasTheSameTopAndBottom() {
+        Random random = new Random(9);
+
+        for (int run = 0; run < 200; run++) {
+            int size = 2 + random.nextInt(60);
+            int top = random.nextInt(6);
+            int bottom = random.nextInt(6);
+
+            long[] keys = new long[size];
+            for (int id = 0; id < size; id++) {
+                keys[id] = Ranking.getKey(random.nextInt(10), random.nextInt(3), 
+                        random.nextInt(5) - 2, id);
+            }
+
+            long[] sorted = keys.clone();
+            Arrays.sort(sorted);
+            long[] full = new long[size];
+            for (int i = 0; i < size; i++) {
+                full[i] = sorted[size - 1 - i];
+            }
+
+            Ranking.rank(keys, size, top, bottom);
+
+            int first = Math.min(top, size);
+            int last = Math.max(first, size - bottom);
+            assertArrayEquals(Arrays.copyOfRange(full, 0, first), Arrays.copyOfRange(keys, 0, first));
+            assertArrayEquals(Arrays.copyOfRange(full, last, size), Arrays.copyOfRange(keys, last, size));
+
+            Arrays.sort(keys);
+            Arrays.sort(full);
+            assertEquals(Arrays.toString(full), Arrays.toString(keys));
+        }
+    }
+}
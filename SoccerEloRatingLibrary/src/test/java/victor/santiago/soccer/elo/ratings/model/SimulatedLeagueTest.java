@@ -0,0 +1,96 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+import victor.santiago.soccer.elo.ratings.controller.Simulator;
+import victor.santiago.soccer.elo.ratings.controller.Statistics;
+
+/**
+ * @author Victor Santiago
+ */
+public class SimulatedLeagueTest {
+
+    private static final int TEAMS = 8;
+    private static final int RUNS = 2000;
+    private static final long SEED = 13;
+
+    @Test
+    public void enteringAResultChangesTheForecast() {
+        SimulatedLeague league = TestLeagues.getSimulatedLeague(TEAMS, 1);
+        double[] before = getForecast(league);
+
+        Match m = league.getMatches().get(0);
+        m.setHomeGoals(0);
+        m.setAwayGoals(5);
+
+        double[] after = getForecast(league);
+        assertFalse(Arrays.equals(before, after));
+        assertArrayEquals(getForecast(copy(league)), after, 0);
+    }
+
+    @Test
+    public void replacingAMatchChangesTheForecast() {
+        SimulatedLeague league = TestLeagues.getSimulatedLeague(TEAMS, 2);
+        double[] before = getForecast(league);
+
+        Match m = league.getMatches().get(0);
+        league.getMatches().set(0, Match.builder()
+                .home(m.getHome())
+                .away(m.getAway())
+                .homeGoals(0)
+                .awayGoals(5)
+                .date(m.getDate())
+                .build());
+
+        double[] after = getForecast(league);
+        assertFalse(Arrays.equals(before, after));
+        assertArrayEquals(getForecast(copy(league)), after, 0);
+    }
+
+    /**
+     * @return The final positions of the home team of the first match.
+     */
+    private static double[] getForecast(SimulatedLeague league) {
+        Simulator simulator = new Simulator(league, false, true);
+        Statistics statistics = simulator.simulate(RUNS, new Statistics(), SEED);
+
+        return statistics.getPositionDistribution(league.getMatches().get(0).getHome());
+    }
+
+    private static SimulatedLeague copy(SimulatedLeague league) {
+        SimulatedLeague copy = new SimulatedLeague(league.getTeams());
+        copy.setMatches(new ArrayList<>(league.getMatches()));
+
+        return copy;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2017 Victor Santiago.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package victor.santiago.soccer.elo.ratings.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import victor.santiago.soccer.elo.ratings.TestLeagues;
+
+/**
+ * @author Victor Santiago
+ */
+public class TeamTest {
+
+    @Test
+    public void limitedHistoryKeepsTheLastRatings() {
+        Team limited = new Team("A", 3);
+        Team full = new Team("A");
+
+        for (int i = 0; i < 10; i++) {
+            limited.addRating(i * TestLeagues.DAY, 1500 + i);
+            full.addRating(i * TestLeagues.DAY, 1500 + i);
+        }
+
+        assertEquals(3, limited.getRatingCount());
+        assertEquals(7, limited.getDroppedRatingCount());
+        assertEquals(full.getRatings().subList(7, 10), limited.getRatings());
+        assertEquals(full.getCurrentRating(), limited.getCurrentRating(), 0);
+
+        for (int i = 7; i < 10; i++) {
+            assertEquals(full.getRatingAt(i * TestLeagues.DAY), limited.getRatingAt(i * TestLeagues.DAY), 0);
+        }
+    }
+
+    @Test
+    public void limitingTheHistoryDropsTheOldestRatings() {
+        Team team = new Team("A");
+        for (int i = 0; i < 10; i++) {
+            team.addRating(i * TestLeagues.DAY, 1500 + i);
+        }
+        Team full = new Team("A", team.getRatings());
+
+        team.setHistoryLimit(4);
+        assertEquals(full.getRatings().subList(6, 10), team.getRatings());
+        assertEquals(6, team.getDroppedRatingCount());
+
+        //Removing the limit keeps what is left, and new ratings are no longer dropped
+        team.setHistoryLimit(0);
+        team.addRating(10 * TestLeagues.DAY, 1510);
+        assertEquals(5, team.getRatingCount());
+        assertEquals(6, team.getDroppedRatingCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ratingsNoLongerKeptAreRejected() {
+        Team team = new Team("A", 2);
+        for (int i = 0; i < 5; i++) {
+            team.addRating(i * TestLeagues.DAY, 1500 + i);
+        }
+
+        team.getRatingAt(TestLeagues.DAY);
+    }
+}